@@ -0,0 +1,56 @@
+package com.makfuzz.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Synthetic datasets built from the sample name files of the project (paths
+ * can be overridden with -Dmakfuzz.firstNames / -Dmakfuzz.lastNames).
+ */
+final class BenchmarkData {
+
+	private static final String[] COUNTRIES = { "FR", "MA", "BE", "CA", "CH" };
+
+	private BenchmarkData() {
+	}
+
+	static List<String> firstNames() {
+		return read(System.getProperty("makfuzz.firstNames", "FirstNames.txt"));
+	}
+
+	static List<String> lastNames() {
+		return read(System.getProperty("makfuzz.lastNames", "LastNames.txt"));
+	}
+
+	/**
+	 * Rows of {first name, last name, country, file row}, with a fixed seed so
+	 * every run scores the same data.
+	 */
+	static List<String[]> rows(int size) {
+		List<String> first = firstNames();
+		List<String> last = lastNames();
+		Random random = new Random(42);
+
+		List<String[]> rows = new ArrayList<>(size);
+		for (int i = 0; i < size; i++) {
+			rows.add(new String[] { first.get(random.nextInt(first.size())), last.get(random.nextInt(last.size())),
+					COUNTRIES[random.nextInt(COUNTRIES.length)], String.valueOf(i + 2) });
+		}
+		return rows;
+	}
+
+	private static List<String> read(String path) {
+		try {
+			return Files.readAllLines(Path.of(path), StandardCharsets.UTF_8).stream().filter(s -> !s.isBlank())
+					.toList();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
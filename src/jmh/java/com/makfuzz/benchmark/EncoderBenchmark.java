@@ -0,0 +1,63 @@
+package com.makfuzz.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.language.bm.NameType;
+import org.apache.commons.codec.language.bm.PhoneticEngine;
+import org.apache.commons.codec.language.bm.RuleType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makfuzz.core.FrenchSoundex;
+
+/**
+ * Phonetic encoders on their own, one name per call, cycling through the
+ * sample first and last names.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EncoderBenchmark {
+
+	private final FrenchSoundex frenchSoundex = new FrenchSoundex();
+	private final PhoneticEngine beiderMorse = new PhoneticEngine(NameType.GENERIC, RuleType.APPROX, true);
+
+	private String[] names;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		List<String> all = new ArrayList<>(BenchmarkData.firstNames());
+		all.addAll(BenchmarkData.lastNames());
+		names = all.stream().map(s -> s.trim().toUpperCase()).toArray(String[]::new);
+	}
+
+	private String nextName() {
+		String name = names[next];
+		next = next + 1 == names.length ? 0 : next + 1;
+		return name;
+	}
+
+	@Benchmark
+	public String frenchSoundex() {
+		return frenchSoundex.encode(nextName());
+	}
+
+	@Benchmark
+	public String beiderMorse() {
+		return beiderMorse.encode(nextName());
+	}
+}
@@ -0,0 +1,86 @@
+package com.makfuzz.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makfuzz.core.Criteria;
+import com.makfuzz.core.Dataset;
+import com.makfuzz.core.Fuzz;
+import com.makfuzz.core.SearchResult;
+
+/**
+ * End-to-end {@link Fuzz#bestMatch} over synthetic datasets.
+ * <p>
+ * {@code warm}: the dataset and the phonetic cache are reused between calls, as
+ * for reruns in the UI. {@code cold}: both are dropped before every call, so
+ * the measured time includes column preparation and phonetic encoding.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = { "-Xms4g", "-Xmx8g" })
+public class FuzzBenchmark {
+
+	private static final List<Integer> COLUMNS = List.of(0, 1, 2);
+
+	@Param({ "10000", "1000000", "10000000" })
+	private int size;
+
+	@Param({ "SIMILARITY", "SIMILARITY_EXACT", "SIMILARITY_REGEX" })
+	private String criteria;
+
+	@Param({ "fr", "en" })
+	private String lang;
+
+	@Param({ "warm", "cold" })
+	private String cache;
+
+	private List<String[]> rows;
+	private Dataset dataset;
+	private List<Criteria> criterias;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		rows = BenchmarkData.rows(size);
+		criterias = switch (criteria) {
+		case "SIMILARITY" -> List.of(Criteria.similarity("Mohamed", 1, 1, 0.8, 0.8),
+				Criteria.similarity("Fennani", 1, 1, 0.8, 0.8));
+		case "SIMILARITY_EXACT" -> List.of(Criteria.similarity("Mohamed", 1, 1, 0.8, 0.8), Criteria.exact("FR", 1, 1));
+		case "SIMILARITY_REGEX" -> List.of(Criteria.similarity("Mohamed", 1, 1, 0.8, 0.8),
+				Criteria.regex("^BEN", 1, 1));
+		default -> throw new IllegalArgumentException(criteria);
+		};
+
+		dataset = Dataset.of(rows);
+		Fuzz.bestMatch(dataset, criterias, COLUMNS, 0.3, 1000, lang);
+	}
+
+	// Per-invocation setup is fine here: one search takes well over a millisecond
+	@Setup(Level.Invocation)
+	public void dropCaches() {
+		if ("cold".equals(cache)) {
+			Fuzz.getPhoneticCache().clear();
+			dataset = Dataset.of(rows);
+		}
+	}
+
+	@Benchmark
+	public SearchResult bestMatch() {
+		return Fuzz.bestMatch(dataset, criterias, COLUMNS, 0.3, 1000, lang);
+	}
+}
@@ -0,0 +1,74 @@
+package com.makfuzz.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.text.similarity.JaroWinklerSimilarity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.makfuzz.core.JaroWinkler;
+
+/**
+ * commons-text Jaro-Winkler against the core kernel, exact and bounded by a
+ * minimum score, for one query name against the sample names in turn.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JaroWinklerBenchmark {
+
+	private final JaroWinklerSimilarity commonsText = new JaroWinklerSimilarity();
+
+	@Param({ "MOHAMED", "CHRISTOPHE" })
+	public String query;
+
+	@Param({ "0.8" })
+	public double minScore;
+
+	private long queryMask;
+	private String[] names;
+	private int next;
+
+	@Setup
+	public void setUp() {
+		List<String> all = new ArrayList<>(BenchmarkData.firstNames());
+		all.addAll(BenchmarkData.lastNames());
+		names = all.stream().map(s -> s.trim().toUpperCase()).toArray(String[]::new);
+		queryMask = JaroWinkler.charMask(query);
+	}
+
+	private String nextName() {
+		String name = names[next];
+		next = next + 1 == names.length ? 0 : next + 1;
+		return name;
+	}
+
+	@Benchmark
+	public double commonsText() {
+		return commonsText.apply(nextName(), query);
+	}
+
+	@Benchmark
+	public double kernel() {
+		return JaroWinkler.similarity(nextName(), query);
+	}
+
+	@Benchmark
+	public double kernelBounded() {
+		return JaroWinkler.similarity(nextName(), query, queryMask, minScore);
+	}
+}
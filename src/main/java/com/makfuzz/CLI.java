@@ -0,0 +1,498 @@
+package com.makfuzz;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.PatternSyntaxException;
+
+import com.makfuzz.core.CompiledQuery;
+import com.makfuzz.core.Criteria;
+import com.makfuzz.core.CsvLoader;
+import com.makfuzz.core.CsvParser;
+import com.makfuzz.core.Dataset;
+import com.makfuzz.core.DedupResult;
+import com.makfuzz.core.Deduplicator;
+import com.makfuzz.core.Fuzz;
+import com.makfuzz.core.LineSimResult;
+import com.makfuzz.core.RowFilter;
+import com.makfuzz.core.ScanPool;
+import com.makfuzz.core.SearchResult;
+
+/**
+ * Headless batch mode: matches every row of a query CSV against a reference
+ * CSV and streams the matches to a CSV or JSONL file.
+ * <p>
+ * Criteria types, weights and minimum scores, search columns, threshold, top N
+ * and language come from a configuration saved by the UI. The value of
+ * criterion i is taken from query column i (or from the i-th column given
+ * with {@code --query-columns}); criteria left blank by a query row are
+ * ignored for that row, as in the UI.
+ * <p>
+ * With {@code --dedup}, the reference file is deduplicated instead (see
+ * {@link Deduplicator}) and every row is written with its cluster id.
+ */
+public class CLI {
+
+	private static final String USAGE = """
+			Usage: java -cp makfuzz.jar com.makfuzz.CLI --config <config.xml> --queries <queries.csv> --output <out.csv|out.jsonl> [options]
+			       java -cp makfuzz.jar com.makfuzz.CLI --dedup --config <config.xml> --output <out.csv|out.jsonl> [options]
+			  --dedup                  groups duplicate rows of the reference file: criterion i compares
+			                           search column i of two rows (EXACT and SIMILARITY criteria only)
+			  --window <n>             rows compared with each row per sorted pass in --dedup mode (default: 10)
+			  --reference <file.csv>   reference file (default: sourcePath of the configuration)
+			  --query-columns <i,j,..> query columns giving the criteria values, in criteria order (default: 0,1,..)
+			  --filter <i=value>       only matches reference rows whose column i equals value, ignoring case
+			                           (repeatable: every filter must hold)
+			  --threshold <t>          overrides globalThreshold
+			  --top <n>                matches kept per query, 0 for all (overrides topN)
+			  --lang <en|fr>           overrides language
+			  --threads <n>            worker threads, 0 for one per processor (overrides parallelism)
+			  --format <csv|jsonl>     output format (default: from the output extension)
+			""";
+
+	// Queries matched (in parallel) between two writes of the output
+	private static final int BATCH_SIZE = 1024;
+
+	private static final long PROGRESS_INTERVAL_MS = 5000;
+
+	public static void main(String[] args) {
+		try {
+			System.exit(run(args));
+		} catch (IllegalArgumentException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.err.print(USAGE);
+			System.exit(2);
+		} catch (IOException e) {
+			System.err.println("Error: " + e.getMessage());
+			System.exit(1);
+		}
+	}
+
+	static int run(String[] args) throws IOException {
+		String configPath = null;
+		String referencePath = null;
+		String queriesPath = null;
+		String outputPath = null;
+		String queryColumns = null;
+		String format = null;
+		Double threshold = null;
+		Integer topN = null;
+		String lang = null;
+		Integer threads = null;
+		boolean dedup = false;
+		int window = Deduplicator.DEFAULT_WINDOW;
+		List<RowFilter> filters = new ArrayList<>();
+
+		for (int i = 0; i < args.length; i++) {
+			String arg = args[i];
+			if (arg.equals("-h") || arg.equals("--help")) {
+				System.out.print(USAGE);
+				return 0;
+			}
+			if (arg.equals("--dedup")) {
+				dedup = true;
+				continue;
+			}
+			if (i + 1 >= args.length) {
+				throw new IllegalArgumentException("Missing value for " + arg);
+			}
+			String value = args[++i];
+			switch (arg) {
+			case "--config" -> configPath = value;
+			case "--reference" -> referencePath = value;
+			case "--queries" -> queriesPath = value;
+			case "--output" -> outputPath = value;
+			case "--query-columns" -> queryColumns = value;
+			case "--format" -> format = value.toLowerCase(Locale.ROOT);
+			case "--threshold" -> threshold = parseNumber(arg, value, Double::valueOf);
+			case "--top" -> topN = parseNumber(arg, value, Integer::valueOf);
+			case "--lang" -> lang = value;
+			case "--threads" -> threads = parseNumber(arg, value, Integer::valueOf);
+			case "--window" -> window = parseNumber(arg, value, Integer::valueOf);
+			case "--filter" -> filters.add(parseFilter(value));
+			default -> throw new IllegalArgumentException("Unknown option " + arg);
+			}
+		}
+
+		if (configPath == null || outputPath == null || (queriesPath == null && !dedup)) {
+			throw new IllegalArgumentException("--config, --queries and --output are required");
+		}
+
+		ConfigManager.AppConfig config = ConfigManager.loadConfig(new File(configPath));
+		if (config == null) {
+			throw new IOException("Cannot read configuration " + configPath);
+		}
+		if (config.criteriaList == null || config.criteriaList.isEmpty()) {
+			throw new IllegalArgumentException("The configuration defines no criteria");
+		}
+		for (ConfigManager.CriteriaConfig cc : config.criteriaList) {
+			try {
+				Criteria.MatchingType.valueOf(cc.type);
+			} catch (IllegalArgumentException | NullPointerException e) {
+				throw new IllegalArgumentException("Unknown criteria type " + cc.type);
+			}
+		}
+		if (config.availableColumns == null || config.availableColumns.isEmpty()) {
+			throw new IllegalArgumentException("The configuration selects no reference column");
+		}
+
+		if (referencePath == null) {
+			referencePath = config.sourcePath;
+		}
+		if (threshold == null) {
+			threshold = config.globalThreshold;
+		}
+		if (topN == null) {
+			topN = config.topN;
+		}
+		if (lang == null) {
+			lang = config.language;
+		}
+		ScanPool.setParallelism(threads != null ? threads : config.parallelism);
+		if (format == null) {
+			format = outputPath.toLowerCase(Locale.ROOT).endsWith(".jsonl") ? "jsonl" : "csv";
+		} else if (!format.equals("csv") && !format.equals("jsonl")) {
+			throw new IllegalArgumentException("Unknown format " + format);
+		}
+
+		int[] criteriaColumns = new int[config.criteriaList.size()];
+		if (queryColumns == null) {
+			for (int i = 0; i < criteriaColumns.length; i++) {
+				criteriaColumns[i] = i;
+			}
+		} else {
+			String[] parts = queryColumns.split(",");
+			if (parts.length != criteriaColumns.length) {
+				throw new IllegalArgumentException("--query-columns needs one column per criterion ("
+						+ criteriaColumns.length + ")");
+			}
+			for (int i = 0; i < parts.length; i++) {
+				criteriaColumns[i] = parseNumber("--query-columns", parts[i].trim(), Integer::valueOf);
+				if (criteriaColumns[i] < 0) {
+					throw new IllegalArgumentException("Invalid column for --query-columns: " + parts[i].trim());
+				}
+			}
+		}
+
+		List<Integer> searchColumns = config.availableColumns.stream().map(cc -> cc.index).toList();
+
+		File referenceFile = new File(referencePath);
+		if (dedup) {
+			if (!filters.isEmpty()) {
+				throw new IllegalArgumentException("--filter is not supported with --dedup");
+			}
+			return runDedup(config, searchColumns, referenceFile, outputPath, format.equals("jsonl"), threshold, lang,
+					window);
+		}
+
+		File queriesFile = new File(queriesPath);
+		for (File f : new File[] { referenceFile, queriesFile }) {
+			if (!f.isFile()) {
+				throw new IOException("File not found: " + f.getPath());
+			}
+		}
+
+		long start = System.nanoTime();
+		log("Loading reference %s", referenceFile);
+		Dataset reference = CsvLoader.load(referenceFile, null);
+		String[] referenceHeader = CsvLoader.readHeader(referenceFile);
+		log("Loading queries %s", queriesFile);
+		Dataset queries = CsvLoader.load(queriesFile, null);
+		String[] queryHeader = CsvLoader.readHeader(queriesFile);
+		log("%,d reference rows, %,d queries, loaded in %.1f s", reference.size(), queries.size(),
+				(System.nanoTime() - start) / 1e9);
+
+		boolean jsonl = format.equals("jsonl");
+		double minScore = threshold;
+		int maxResults = topN;
+		String language = lang;
+		RowFilter filter = filters.isEmpty() ? null : RowFilter.and(filters.toArray(new RowFilter[0]));
+
+		AtomicLong done = new AtomicLong();
+		long matches = 0;
+		long searchStart = System.nanoTime();
+		Thread progress = startProgress(done, queries.size(), searchStart);
+
+		try (BufferedWriter out = Files.newBufferedWriter(new File(outputPath).toPath(), StandardCharsets.UTF_8)) {
+			if (!jsonl) {
+				writeCsvHeader(out, queryHeader, referenceHeader);
+			}
+
+			for (int from = 0; from < queries.size(); from += BATCH_SIZE) {
+				int to = Math.min(from + BATCH_SIZE, queries.size());
+
+				// Match a batch together, then write it in query order; queries without
+				// any criterion value, or with an invalid regex, are skipped
+				List<CompiledQuery> compiled = ScanPool.map(from, to, q -> {
+					List<Criteria> criteria;
+					try {
+						criteria = buildCriteria(config.criteriaList, criteriaColumns, queries.getRow(q));
+					} catch (IllegalStateException e) {
+						if (e.getCause() instanceof PatternSyntaxException pse) {
+							log("Skipping query line %d: invalid regex %s (%s)", queries.getLineNumber(q),
+									pse.getPattern(), pse.getDescription());
+						} else {
+							log("Skipping query line %d: %s", queries.getLineNumber(q), e.getMessage());
+						}
+						return null;
+					}
+					return criteria.isEmpty() ? null : CompiledQuery.compile(criteria, searchColumns, language, filter);
+				});
+				List<SearchResult> matched = Fuzz.bestMatches(reference,
+						compiled.stream().filter(java.util.Objects::nonNull).toList(), minScore, maxResults,
+						maxResults <= 0);
+				List<SearchResult> batch = new ArrayList<>(compiled.size());
+				int next = 0;
+				for (CompiledQuery query : compiled) {
+					batch.add(query == null ? null : matched.get(next++));
+				}
+				done.addAndGet(to - from);
+
+				for (int i = 0; i < batch.size(); i++) {
+					SearchResult result = batch.get(i);
+					if (result == null) {
+						continue;
+					}
+					int q = from + i;
+					List<LineSimResult> found = maxResults <= 0 ? result.getAllFoundResults() : result.getResults();
+					int rank = 1;
+					for (LineSimResult res : found) {
+						if (jsonl) {
+							writeJson(out, queries.getLineNumber(q), queryHeader, queries.getRow(q), rank++, res,
+									reference.getLineNumber(res.getRowIndex()), referenceHeader);
+						} else {
+							writeCsv(out, queries.getLineNumber(q), queries.getRow(q), queryHeader.length, rank++,
+									res, reference.getLineNumber(res.getRowIndex()), referenceHeader.length);
+						}
+					}
+					matches += found.size();
+				}
+			}
+		} finally {
+			progress.interrupt();
+		}
+
+		double seconds = (System.nanoTime() - searchStart) / 1e9;
+		log("Done: %,d queries, %,d matches written to %s in %.1f s (%,.0f queries/s, %,.0f comparisons/s)",
+				queries.size(), matches, outputPath, seconds, queries.size() / seconds,
+				(double) queries.size() * reference.size() / seconds);
+		return 0;
+	}
+
+	private static int runDedup(ConfigManager.AppConfig config, List<Integer> searchColumns, File referenceFile,
+			String outputPath, boolean jsonl, double threshold, String lang, int window) throws IOException {
+		if (config.criteriaList.size() != searchColumns.size()) {
+			throw new IllegalArgumentException("--dedup needs one search column per criterion");
+		}
+		if (!referenceFile.isFile()) {
+			throw new IOException("File not found: " + referenceFile.getPath());
+		}
+
+		List<Criteria> rules = new ArrayList<>();
+		for (ConfigManager.CriteriaConfig cc : config.criteriaList) {
+			Criteria.MatchingType type = Criteria.MatchingType.valueOf(cc.type);
+			if (type == Criteria.MatchingType.SIMILARITY) {
+				rules.add(Criteria.similarity(null, cc.spellingWeight, cc.phoneticWeight, cc.minSpelling,
+						cc.minPhonetic));
+			} else if (type == Criteria.MatchingType.EXACT) {
+				rules.add(Criteria.exact(null, cc.spellingWeight, cc.phoneticWeight));
+			} else {
+				throw new IllegalArgumentException("--dedup does not support " + type + " criteria");
+			}
+		}
+
+		long start = System.nanoTime();
+		log("Loading %s", referenceFile);
+		Dataset dataset = CsvLoader.load(referenceFile, null);
+		String[] header = CsvLoader.readHeader(referenceFile);
+		log("%,d rows loaded in %.1f s", dataset.size(), (System.nanoTime() - start) / 1e9);
+
+		long dedupStart = System.nanoTime();
+		DedupResult result = Deduplicator.deduplicate(dataset, searchColumns, rules, threshold, lang, window);
+		double seconds = (System.nanoTime() - dedupStart) / 1e9;
+
+		try (BufferedWriter out = Files.newBufferedWriter(new File(outputPath).toPath(), StandardCharsets.UTF_8)) {
+			if (!jsonl) {
+				out.write("line,cluster_id,cluster_size");
+				for (String h : header) {
+					out.write("," + CsvParser.escape(h));
+				}
+				out.write("\n");
+			}
+			for (int row = 0; row < dataset.size(); row++) {
+				if (jsonl) {
+					StringBuilder sb = new StringBuilder(256);
+					sb.append("{\"line\":").append(dataset.getLineNumber(row)).append(",\"cluster_id\":")
+							.append(result.getClusterIds()[row]).append(",\"cluster_size\":")
+							.append(result.getClusterSize(row)).append(",\"row\":");
+					appendObject(sb, header, dataset.getRow(row));
+					sb.append("}\n");
+					out.write(sb.toString());
+				} else {
+					out.write(dataset.getLineNumber(row) + "," + result.getClusterIds()[row] + ","
+							+ result.getClusterSize(row));
+					writeFields(out, dataset.getRow(row), header.length);
+					out.write("\n");
+				}
+			}
+		}
+
+		log("Done: %,d rows, %,d clusters, %,d duplicates, %,d pairs compared in %.1f s (%,.0f rows/s), written to %s",
+				dataset.size(), result.getClusterCount(), result.getDuplicateCount(), result.getComparisons(), seconds,
+				dataset.size() / seconds, outputPath);
+		return 0;
+	}
+
+	private static List<Criteria> buildCriteria(List<ConfigManager.CriteriaConfig> configs, int[] columns,
+			String[] query) {
+		List<Criteria> criteria = new ArrayList<>();
+		for (int i = 0; i < configs.size(); i++) {
+			String value = columns[i] < query.length ? query[columns[i]].trim().toUpperCase() : "";
+			if (value.isEmpty()) {
+				continue;
+			}
+
+			ConfigManager.CriteriaConfig cc = configs.get(i);
+			Criteria.MatchingType type = Criteria.MatchingType.valueOf(cc.type);
+			if (type == Criteria.MatchingType.SIMILARITY) {
+				criteria.add(Criteria.similarity(value, cc.spellingWeight, cc.phoneticWeight, cc.minSpelling,
+						cc.minPhonetic));
+			} else if (type == Criteria.MatchingType.EXACT) {
+				criteria.add(Criteria.exact(value, cc.spellingWeight, cc.phoneticWeight));
+			} else {
+				criteria.add(Criteria.regex(value, cc.spellingWeight, cc.phoneticWeight));
+			}
+		}
+		return criteria;
+	}
+
+	private static Thread startProgress(AtomicLong done, int total, long start) {
+		Thread thread = new Thread(() -> {
+			try {
+				while (true) {
+					Thread.sleep(PROGRESS_INTERVAL_MS);
+					long n = done.get();
+					double seconds = (System.nanoTime() - start) / 1e9;
+					log("%,d / %,d queries (%.1f%%, %,.0f queries/s)", n, total, total == 0 ? 100.0 : n * 100.0 / total,
+							n / seconds);
+				}
+			} catch (InterruptedException e) {
+				// Search finished
+			}
+		}, "makfuzz-progress");
+		thread.setDaemon(true);
+		thread.start();
+		return thread;
+	}
+
+	private static void writeCsvHeader(Writer out, String[] queryHeader, String[] referenceHeader)
+			throws IOException {
+		out.write("query_line");
+		for (String h : queryHeader) {
+			out.write(",query_" + CsvParser.escape(h));
+		}
+		out.write(",rank,score,ref_line");
+		for (String h : referenceHeader) {
+			out.write(",ref_" + CsvParser.escape(h));
+		}
+		out.write("\n");
+	}
+
+	private static void writeCsv(Writer out, int queryLine, String[] query, int queryWidth, int rank,
+			LineSimResult res, int refLine, int refWidth) throws IOException {
+		out.write(Integer.toString(queryLine));
+		writeFields(out, query, queryWidth);
+		out.write("," + rank + "," + formatScore(res.getScore()) + "," + refLine);
+		writeFields(out, res.getCandidate(), refWidth);
+		out.write("\n");
+	}
+
+	private static void writeFields(Writer out, String[] fields, int width) throws IOException {
+		for (int i = 0; i < Math.max(width, fields.length); i++) {
+			out.write(',');
+			out.write(CsvParser.escape(i < fields.length ? fields[i] : ""));
+		}
+	}
+
+	private static void writeJson(Writer out, int queryLine, String[] queryHeader, String[] query, int rank,
+			LineSimResult res, int refLine, String[] referenceHeader) throws IOException {
+		StringBuilder sb = new StringBuilder(256);
+		sb.append("{\"query_line\":").append(queryLine).append(",\"query\":");
+		appendObject(sb, queryHeader, query);
+		sb.append(",\"rank\":").append(rank).append(",\"score\":").append(formatScore(res.getScore()))
+				.append(",\"ref_line\":").append(refLine).append(",\"ref\":");
+		appendObject(sb, referenceHeader, res.getCandidate());
+		sb.append("}\n");
+		out.write(sb.toString());
+	}
+
+	private static void appendObject(StringBuilder sb, String[] names, String[] values) {
+		sb.append('{');
+		for (int i = 0; i < Math.max(names.length, values.length); i++) {
+			if (i > 0) {
+				sb.append(',');
+			}
+			appendString(sb, i < names.length ? names[i] : "column" + (i + 1));
+			sb.append(':');
+			appendString(sb, i < values.length ? values[i] : "");
+		}
+		sb.append('}');
+	}
+
+	private static void appendString(StringBuilder sb, String value) {
+		sb.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char ch = value.charAt(i);
+			switch (ch) {
+			case '"' -> sb.append("\\\"");
+			case '\\' -> sb.append("\\\\");
+			case '\n' -> sb.append("\\n");
+			case '\r' -> sb.append("\\r");
+			case '\t' -> sb.append("\\t");
+			default -> {
+				if (ch < 0x20) {
+					sb.append(String.format("\\u%04x", (int) ch));
+				} else {
+					sb.append(ch);
+				}
+			}
+			}
+		}
+		sb.append('"');
+	}
+
+	private static String formatScore(double score) {
+		return String.format(Locale.ROOT, "%.4f", score);
+	}
+
+	/**
+	 * {@code i=value}: rows whose column i equals value.
+	 */
+	private static RowFilter parseFilter(String value) {
+		int eq = value.indexOf('=');
+		if (eq <= 0) {
+			throw new IllegalArgumentException("--filter expects <column>=<value>: " + value);
+		}
+		return RowFilter.equalTo(parseNumber("--filter", value.substring(0, eq).trim(), Integer::valueOf),
+				value.substring(eq + 1));
+	}
+
+	private static <T> T parseNumber(String option, String value, java.util.function.Function<String, T> parser) {
+		try {
+			return parser.apply(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Invalid number for " + option + ": " + value);
+		}
+	}
+
+	private static void log(String format, Object... args) {
+		System.err.println(String.format(Locale.ROOT, format, args));
+	}
+}
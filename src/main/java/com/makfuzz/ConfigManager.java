@@ -20,6 +20,8 @@ public class ConfigManager {
 		public double globalThreshold = 0.3;
 		public int topN = 1000;
 		public String language = "en";
+		// Worker threads of searches, 0 for one per processor
+		public int parallelism = 0;
 
 		@XmlElementWrapper(name = "SelectedCriteria")
 		@XmlElement(name = "Criteria")
@@ -0,0 +1,199 @@
+package com.makfuzz;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.swing.table.AbstractTableModel;
+
+import com.makfuzz.core.Dataset;
+import com.makfuzz.core.LineSimResult;
+import com.makfuzz.core.SimResult;
+
+/**
+ * Search results as a table, read straight from the result list: cells are
+ * only built for the rows the table paints. Sorting permutes row indexes,
+ * with a comparator typed by column.
+ * <p>
+ * Columns: result index (#), file line, the displayed source columns, total
+ * score, then value, spelling and phonetic scores of each criterion, and last
+ * the {@link LineSimResult} itself (hidden from the view).
+ */
+class ResultTableModel extends AbstractTableModel {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<String> columnNames = new ArrayList<>();
+
+	private Dataset dataset;
+	private List<LineSimResult> results = Collections.emptyList();
+	private int[] sourceColumns = new int[0];
+	private int nbCriteria;
+
+	// Result shown on each table row, null when unsorted
+	private int[] order;
+
+	void setColumnNames(List<String> names) {
+		columnNames = new ArrayList<>(names);
+		fireTableStructureChanged();
+	}
+
+	/**
+	 * @param sourceColumns CSV index of each displayed source column
+	 */
+	void setResults(Dataset dataset, List<LineSimResult> results, int[] sourceColumns, int nbCriteria) {
+		this.dataset = dataset;
+		this.results = results;
+		this.sourceColumns = sourceColumns.clone();
+		this.nbCriteria = nbCriteria;
+		this.order = null;
+		fireTableDataChanged();
+	}
+
+	LineSimResult getResult(int row) {
+		return results.get(resultIndex(row));
+	}
+
+	/**
+	 * Shows the results in search order again.
+	 */
+	void unsort() {
+		order = null;
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Sorts the rows on {@code column}; equal rows stay in search order.
+	 */
+	void sort(int column, boolean ascending) {
+		int size = results.size();
+		Comparator<Integer> comparator = comparator(column);
+		Integer[] sorted = new Integer[size];
+		for (int i = 0; i < size; i++) {
+			sorted[i] = i;
+		}
+		Arrays.sort(sorted, ascending ? comparator : comparator.reversed());
+
+		order = new int[size];
+		for (int i = 0; i < size; i++) {
+			order[i] = sorted[i];
+		}
+		fireTableDataChanged();
+	}
+
+	/**
+	 * Compares results (by index) on a column, from keys computed once per
+	 * result: numbers for numeric columns, and text columns compare as numbers
+	 * when both values are ones (e.g. "12", "50%").
+	 */
+	private Comparator<Integer> comparator(int column) {
+		int size = results.size();
+		boolean text = column >= 2 && column < 2 + sourceColumns.length
+				|| column > 2 + sourceColumns.length && (column - 3 - sourceColumns.length) % 3 == 0;
+		if (!text) {
+			double[] keys = new double[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = cell(i, column) instanceof Number n ? n.doubleValue() : Double.NaN;
+			}
+			return (a, b) -> Double.compare(keys[a], keys[b]);
+		}
+
+		String[] keys = new String[size];
+		double[] numbers = new double[size];
+		for (int i = 0; i < size; i++) {
+			Object value = cell(i, column);
+			keys[i] = value == null ? null : value.toString();
+			numbers[i] = keys[i] == null ? Double.NaN : parseNumber(keys[i]);
+		}
+		return (a, b) -> {
+			if (keys[a] == null || keys[b] == null) {
+				return keys[a] == null ? (keys[b] == null ? 0 : -1) : 1;
+			}
+			if (!Double.isNaN(numbers[a]) && !Double.isNaN(numbers[b])) {
+				return Double.compare(numbers[a], numbers[b]);
+			}
+			return keys[a].compareToIgnoreCase(keys[b]);
+		};
+	}
+
+	private static double parseNumber(String value) {
+		try {
+			return Double.parseDouble(value.replace("%", "").trim());
+		} catch (NumberFormatException e) {
+			return Double.NaN;
+		}
+	}
+
+	private int resultIndex(int row) {
+		return order == null ? row : order[row];
+	}
+
+	@Override
+	public int getRowCount() {
+		return results.size();
+	}
+
+	@Override
+	public int getColumnCount() {
+		return columnNames.size();
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		return columnNames.get(column);
+	}
+
+	@Override
+	public Object getValueAt(int row, int column) {
+		return cell(resultIndex(row), column);
+	}
+
+	private Object cell(int index, int column) {
+		LineSimResult res = results.get(index);
+		if (column == getColumnCount() - 1) {
+			return res;
+		}
+		if (column == 0) {
+			return index + 1;
+		}
+		if (column == 1) {
+			return dataset.getLineNumber(res.getRowIndex());
+		}
+
+		int sourceColumn = column - 2;
+		if (sourceColumn < sourceColumns.length) {
+			String[] cand = res.getCandidate();
+			int idx = sourceColumns[sourceColumn];
+			return (cand != null && idx >= 0 && idx < cand.length) ? cand[idx] : "";
+		}
+		if (sourceColumn == sourceColumns.length) {
+			return res.getScore();
+		}
+
+		int criterion = (sourceColumn - sourceColumns.length - 1) / 3;
+		if (criterion >= nbCriteria) {
+			return null;
+		}
+		SimResult sr = res.getSimResults()[criterion];
+		boolean matched = sr != null && (sr.getScore() > 0 || sr.getValue() != null);
+		switch ((sourceColumn - sourceColumns.length - 1) % 3) {
+		case 0:
+			if (!matched) {
+				return "";
+			}
+			String val = (sr.getValue() != null) ? sr.getValue().trim() : "";
+			return val.isEmpty() ? "-" : val;
+		case 1:
+			return matched ? sr.getSpellingScore() : 0.0;
+		default:
+			return matched ? sr.getPhoneticScore() : 0.0;
+		}
+	}
+
+	@Override
+	public boolean isCellEditable(int row, int column) {
+		return false;
+	}
+}
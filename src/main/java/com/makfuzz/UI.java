@@ -15,6 +15,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
+import java.util.concurrent.atomic.AtomicReference;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -35,9 +36,7 @@ import javax.swing.SwingUtilities;
 import javax.swing.SwingWorker;
 import javax.swing.UIManager;
 import javax.swing.filechooser.FileNameExtensionFilter;
-import javax.swing.table.DefaultTableModel;
 
-import org.apache.commons.io.FileUtils;
 import org.apache.poi.ss.usermodel.BorderStyle;
 import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.CellStyle;
@@ -51,20 +50,29 @@ import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
 import com.formdev.flatlaf.FlatClientProperties;
 import com.makfuzz.core.Criteria;
+import com.makfuzz.core.CompiledQuery;
+import com.makfuzz.core.CsvLoader;
+import com.makfuzz.core.CsvParser;
+import com.makfuzz.core.Dataset;
+import com.makfuzz.core.DatasetSnapshot;
 import com.makfuzz.core.Fuzz;
 import com.makfuzz.core.LineSimResult;
+import com.makfuzz.core.PhoneticPreEncoder;
+import com.makfuzz.core.RankedResults;
+import com.makfuzz.core.ScanPool;
+import com.makfuzz.core.SearchMonitor;
+import com.makfuzz.core.SearchProgress;
 import com.makfuzz.core.SearchResult;
 import com.makfuzz.core.SimResult;
 
 import net.miginfocom.swing.MigLayout;
 
 public class UI extends JFrame {
-	private List<String[]> database;
+	private Dataset database;
 	private JTable resultTable;
-	private DefaultTableModel tableModel;
+	private ResultTableModel tableModel;
 
 	// Sorting state
-	private List<Object[]> originalTableData;
 	private int lastSortedColumn = -1;
 	private int sortState = 0; // 0 = unsorted, 1 = descending, 2 = ascending
 
@@ -84,7 +92,15 @@ public class UI extends JFrame {
 	private JButton addCriteriaBtn;
 	private JLabel statusLabel;
 	private JLabel totalFoundLabel;
+	private JLabel encodingLabel;
 	private SearchResult lastSearchResult;
+	private RankedResults lastRanking;
+	private SearchMonitor runningSearch;
+	private volatile PhoneticPreEncoder preEncoder;
+	private double lastSearchThreshold;
+
+	// Worker threads (0: one per processor), only set in the configuration file
+	private int parallelism;
 
 	// I18N Fields
 	private ResourceBundle bundle;
@@ -112,6 +128,7 @@ public class UI extends JFrame {
 	private JPanel centerPanel;
 	private static final String CARD_TABLE = "TABLE";
 	private static final String CARD_LOADING = "LOADING";
+	private JLabel loadingLabel;
 
 	public UI() {
 		// Apply FlatLaf Light theme with modern customizations
@@ -261,6 +278,7 @@ public class UI extends JFrame {
 			config.topN = 1000;
 		}
 		config.language = currentLocale.getLanguage();
+		config.parallelism = parallelism;
 
 		config.criteriaList = new ArrayList<>();
 		for (CriteriaLine cl : criteriaLines) {
@@ -306,6 +324,8 @@ public class UI extends JFrame {
 				} catch (Exception e) {
 				}
 				topNField.setText(String.valueOf(config.topN));
+				parallelism = config.parallelism;
+				ScanPool.setParallelism(parallelism);
 
 				if (config.language != null) {
 					if (config.language.equals("fr")) {
@@ -396,65 +416,61 @@ public class UI extends JFrame {
 			colNames.add(bundle.getString("search.metrics.p"));
 		}
 		colNames.add("HIDDEN_DATA"); // Hidden column to store LineSimResult
-		tableModel.setColumnIdentifiers(colNames.toArray());
+		tableModel.setColumnNames(colNames);
 		applyTableColumnStyles();
 
 	}
 
-	private void loadData(String path) {
-		if (path == null || path.isEmpty()) {
-			return;
-		}
-
-		File f = new File(path);
-		// Only reload if file changed. Column selection changes don't require reloading
-		// the whole CSV into 'database' field
-		if (path.equals(lastLoadedPath) && f.lastModified() == lastLoadedTimestamp && database != null) {
-			return;
-		}
-
-		try {
-			if (!f.exists()) {
-				JOptionPane.showMessageDialog(this,
-						MessageFormat.format(bundle.getString("dialog.error.file_not_found"), f.getAbsolutePath()));
-				database = new ArrayList<>();
-				return;
-			}
-
-			List<String> lines = FileUtils.readLines(f, StandardCharsets.UTF_8);
-			if (lines.isEmpty()) {
-				database = new ArrayList<>();
-				return;
-			}
-
-			List<String[]> data = new ArrayList<>();
-			for (int i = 0; i < lines.size(); i++) {
-				if (i == 0) {
-					continue; // Skip header
-				}
-				String lineText = lines.get(i);
-				if (lineText.trim().isEmpty()) {
-					continue;
-				}
+	/**
+	 * Whether {@code f} must be (re)loaded. Column selection changes don't require
+	 * reloading the whole CSV into 'database' field.
+	 */
+	private boolean needsLoading(File f) {
+		return !(f.getPath().equals(lastLoadedPath) && f.lastModified() == lastLoadedTimestamp && database != null);
+	}
 
-				// USE ROBUST PARSER
-				String[] parts = parseCSVLine(lineText);
-				String[] fullRow = new String[parts.length + 1];
-				System.arraycopy(parts, 0, fullRow, 0, parts.length);
-				// Store 1-based line index as the last element
-				fullRow[parts.length] = String.valueOf(i + 1);
-				data.add(fullRow);
-			}
-			database = data;
+	/**
+	 * Reads {@code f} off the EDT, from its snapshot when it has an up to date
+	 * one, publishing the loaded percentage through {@code progress}.
+	 */
+	private Dataset loadData(File f, java.util.function.IntConsumer progress) throws IOException {
+		return DatasetSnapshot.load(f,
+				(done, total) -> progress.accept(total == 0 ? 100 : (int) (done * 100 / total)));
+	}
 
-			lastLoadedPath = path;
-			lastLoadedTimestamp = f.lastModified();
+	/**
+	 * Computes in the background the phonetic codes of the selected columns of
+	 * a freshly loaded file, for the searches to come, showing the progress in
+	 * the footer.
+	 */
+	private void startPreEncoding(Dataset db, List<Integer> columns, String lang) {
+		PhoneticPreEncoder previous = preEncoder;
+		if (previous != null) {
+			previous.cancel();
+		}
+		preEncoder = PhoneticPreEncoder.start(db, columns, lang,
+				percent -> SwingUtilities.invokeLater(() -> encodingLabel.setText(
+						percent < 100 ? MessageFormat.format(bundle.getString("status.encoding"), percent) : "")));
+	}
 
-		} catch (IOException e) {
-			e.printStackTrace();
-			JOptionPane.showMessageDialog(this,
-					MessageFormat.format(bundle.getString("dialog.error.load_error"), e.getMessage()));
+	/**
+	 * Saves in the background what searches prepared on {@code db} (normalised
+	 * columns, phonetic codes), for the next time the file is opened.
+	 */
+	private void saveSnapshot(Dataset db) {
+		if (DatasetSnapshot.isSaved(db)) {
+			return;
 		}
+		Thread saver = new Thread(() -> {
+			try {
+				DatasetSnapshot.save(db);
+			} catch (IOException e) {
+				// Not fatal: the file is only parsed again next time
+				e.printStackTrace();
+			}
+		}, "makfuzz-snapshot");
+		saver.setDaemon(true);
+		saver.start();
 	}
 
 	private void chooseFileAndColumns() {
@@ -472,14 +488,12 @@ public class UI extends JFrame {
 
 	private void showColumnSelectionDialog(File selectedFile) {
 		try {
-			List<String> lines = FileUtils.readLines(selectedFile, StandardCharsets.UTF_8);
-			if (lines.isEmpty()) {
+			// Only the header is needed here: don't read the whole file
+			String[] columns = CsvLoader.readHeader(selectedFile);
+			if (columns.length == 0) {
 				return;
 			}
 
-			String headerLine = lines.get(0);
-			String[] columns = headerLine.split("[,;]");
-
 			// Show column selection dialog
 			JPanel panel = new JPanel(new MigLayout("wrap 1, fillx", "[grow]"));
 			panel.add(new JLabel(bundle.getString("dialog.select_columns.msg")), "gapbottom 10");
@@ -521,9 +535,6 @@ public class UI extends JFrame {
 
 				updateSelectedColumnsLabel();
 
-				// Reload data with new columns
-				loadData(selectedFile.getAbsolutePath());
-
 				// Trigger dynamic text update
 				updateTexts();
 
@@ -671,13 +682,9 @@ public class UI extends JFrame {
 	}
 
 	private void setupCenterPanel() {
-		tableModel = new DefaultTableModel(new String[] { "#", "File Row", "First Name", "Spell (FN)", "Phon (FN)",
-				"Last Name", "Spell (LN)", "Phon (LN)", "Total Score" }, 0) {
-			@Override
-			public boolean isCellEditable(int row, int column) {
-				return false;
-			}
-		};
+		tableModel = new ResultTableModel();
+		tableModel.setColumnNames(List.of("#", "File Row", "First Name", "Spell (FN)", "Phon (FN)", "Last Name",
+				"Spell (LN)", "Phon (LN)", "Total Score"));
 		resultTable = new JTable(tableModel);
 		resultTable.getTableHeader().setReorderingAllowed(false);
 		resultTable.setShowGrid(true);
@@ -715,7 +722,7 @@ public class UI extends JFrame {
 		JPanel loadingContent = new JPanel(new MigLayout("ins 0, wrap 1, align center", "[center]"));
 		loadingContent.setOpaque(false);
 
-		JLabel loadingLabel = new JLabel("Searching...");
+		loadingLabel = new JLabel("Searching...");
 		loadingLabel.setFont(new Font("SansSerif", Font.BOLD, 18));
 		loadingLabel.setForeground(new Color(99, 102, 241));
 
@@ -748,6 +755,11 @@ public class UI extends JFrame {
 
 		// statusLabel intentionally not added to footer
 
+		encodingLabel = new JLabel("");
+		encodingLabel.setForeground(new Color(156, 163, 175));
+		encodingLabel.setFont(new Font("SansSerif", Font.PLAIN, 12));
+		footer.add(encodingLabel, "aligny center");
+
 		// Metrics Panel
 		JPanel metricPanel = new JPanel(new MigLayout("ins 0, aligny center", "[]20[]", "[]"));
 		metricPanel.setOpaque(false);
@@ -822,11 +834,9 @@ public class UI extends JFrame {
 			c.setBackground(Color.WHITE);
 
 			try {
-				int modelRow = table.convertRowIndexToModel(row);
-				int dataCol = table.getModel().getColumnCount() - 1;
-				Object data = table.getModel().getValueAt(modelRow, dataCol);
+				LineSimResult lsr = tableModel.getResult(table.convertRowIndexToModel(row));
 
-				if (data instanceof LineSimResult lsr && sourceColIndex >= 0
+				if (sourceColIndex >= 0
 						&& sourceColIndex < availableColumns.size()) {
 					int csvIdx = availableColumns.get(sourceColIndex).index;
 					SimResult[] simResults = lsr.getSimResults();
@@ -973,9 +983,13 @@ public class UI extends JFrame {
 			return;
 		}
 
-		// Prevent concurrent searches
+		// Prevent concurrent searches: stop the running scan, the pending search
+		// starts as soon as it returns
 		if (executeBtn != null && !executeBtn.isEnabled()) {
 			searchPending = true;
+			if (runningSearch != null) {
+				runningSearch.cancel();
+			}
 			return;
 		}
 
@@ -985,9 +999,22 @@ public class UI extends JFrame {
 		commitSpinners();
 
 		try {
+			String path = sourcePathField.getText();
+			if (path == null || path.isEmpty()) {
+				return;
+			}
+
+			File sourceFile = new File(path);
+			if (!sourceFile.exists()) {
+				JOptionPane.showMessageDialog(this, MessageFormat
+						.format(bundle.getString("dialog.error.file_not_found"), sourceFile.getAbsolutePath()));
+				database = Dataset.of(new ArrayList<>());
+				return;
+			}
+
 			// Load data first (using cache if possible)
-			loadData(sourcePathField.getText());
-			if (database == null || database.isEmpty()) {
+			boolean loading = needsLoading(sourceFile);
+			if (!loading && database.isEmpty()) {
 				if (criteriaLines.isEmpty()) {
 					JOptionPane.showMessageDialog(this, bundle.getString("dialog.error.no_columns_selected"));
 				}
@@ -1001,13 +1028,16 @@ public class UI extends JFrame {
 			}
 
 			// Switch to loading view
+			loadingLabel.setText(loading ? MessageFormat.format(bundle.getString("status.loading_file"), 0)
+					: bundle.getString("status.loading"));
 			centerCardLayout.show(centerPanel, CARD_LOADING);
 
 			// Update selected indices from current available columns
 			lastSelectedIndices = availableColumns.stream().map(cc -> cc.index).toList();
 
 			// Capture parameters for thread
-			List<String[]> currentDb = database;
+			Dataset currentDb = loading ? null : database;
+			long sourceTimestamp = sourceFile.lastModified();
 			List<Criteria> criteriaList = new ArrayList<>();
 			for (CriteriaLine cl : criteriaLines) {
 				if (cl.getCriteria() != null) {
@@ -1018,25 +1048,88 @@ public class UI extends JFrame {
 			double globalThreshold = (Double) globalThresholdField.getValue();
 			int topN = Integer.parseInt(topNField.getText());
 			String lang = currentLocale.getLanguage();
+			RankedResults previousRanking = lastRanking;
+			List<Integer> searchColumns = lastSelectedIndices;
+			// Dataset searched, once loaded: partial results are shown before it is adopted
+			AtomicReference<Dataset> searched = new AtomicReference<>(currentDb);
+			SearchMonitor monitor = new SearchMonitor(topN, progress -> SwingUtilities
+					.invokeLater(() -> showProgress(progress, criteriaList, searched.get())));
+			runningSearch = monitor;
+
+			// Run loading (when needed) and search in background
+			SwingWorker<SearchResult, Integer> worker = new SwingWorker<>() {
+				private Dataset db = currentDb;
+				private RankedResults ranking;
 
-			// Run search in background
-			SwingWorker<SearchResult, Void> worker = new SwingWorker<>() {
 				@Override
 				protected SearchResult doInBackground() throws Exception {
-					return Fuzz.bestMatch(currentDb, criteriaList, lastSelectedIndices, globalThreshold, topN, lang);
+					if (db == null) {
+						db = loadData(sourceFile, this::publish);
+						searched.set(db);
+						startPreEncoding(db, searchColumns, lang);
+					}
+					if (db.isEmpty()) {
+						return null;
+					}
+					// Same search as last time, with another threshold or top N: read the
+					// results from its ranking instead of scoring the lines again
+					CompiledQuery query = CompiledQuery.compile(criteriaList, searchColumns, lang);
+					ranking = previousRanking;
+					if (ranking == null || !ranking.isFor(db, query)) {
+						ranking = Fuzz.rank(db, query, globalThreshold, monitor);
+					} else if (!ranking.covers(globalThreshold)) {
+						// Threshold lowered under what was ranked: rank every line once
+						ranking = Fuzz.rank(db, ranking.getQuery(), 0, monitor);
+					}
+					return ranking.select(globalThreshold, topN, false);
+				}
+
+				@Override
+				protected void process(List<Integer> percents) {
+					int percent = percents.get(percents.size() - 1);
+					loadingLabel.setText(percent < 100
+							? MessageFormat.format(bundle.getString("status.loading_file"), percent)
+							: bundle.getString("status.loading"));
 				}
 
 				@Override
 				protected void done() {
 					try {
+						// Keep a freshly loaded file even when its search was cancelled
+						if (db != null && db != database) {
+							database = db;
+							lastLoadedPath = sourceFile.getPath();
+							lastLoadedTimestamp = sourceTimestamp;
+						}
 						SearchResult searchResult = get();
-						updateResults(searchResult, criteriaList);
+						if (searchResult == null) {
+							if (criteriaLines.isEmpty()) {
+								JOptionPane.showMessageDialog(UI.this,
+										bundle.getString("dialog.error.no_columns_selected"));
+							}
+							return;
+						}
+						lastRanking = ranking;
+						lastSearchResult = searchResult;
+						lastSearchThreshold = globalThreshold;
+						updateResults(searchResult, criteriaList, db);
+						saveSnapshot(db);
+					} catch (java.util.concurrent.ExecutionException e) {
+						if (e.getCause() instanceof java.util.concurrent.CancellationException) {
+							return; // superseded by the pending search
+						}
+						e.getCause().printStackTrace();
+						String key = e.getCause() instanceof IOException ? "dialog.error.load_error"
+								: "dialog.error.search_error";
+						JOptionPane.showMessageDialog(UI.this,
+								MessageFormat.format(bundle.getString(key), e.getCause().getMessage()));
 					} catch (Exception e) {
 						e.printStackTrace();
 						JOptionPane.showMessageDialog(UI.this,
 								MessageFormat.format(bundle.getString("dialog.error.search_error"), e.getMessage()));
 					} finally {
 						// UI Cleanup
+						runningSearch = null;
 						setCursor(java.awt.Cursor.getDefaultCursor());
 						if (executeBtn != null) {
 							executeBtn.setEnabled(true);
@@ -1065,8 +1158,22 @@ public class UI extends JFrame {
 		}
 	}
 
-	private void updateResults(SearchResult searchResult, List<Criteria> criteriaList) {
-		this.lastSearchResult = searchResult;
+	/**
+	 * Shows the best lines found so far by the running search.
+	 */
+	private void showProgress(SearchProgress progress, List<Criteria> criteriaList, Dataset db) {
+		if (runningSearch == null || runningSearch.isCancelled()) {
+			return;
+		}
+		centerCardLayout.show(centerPanel, CARD_TABLE);
+		updateResults(progress.getPartialResult(), criteriaList, db);
+		if (totalFoundLabel != null) {
+			totalFoundLabel.setText(MessageFormat.format(bundle.getString("status.searching"), progress.getPercent(),
+					progress.getFound(), progress.getRowsPerSecond()));
+		}
+	}
+
+	private void updateResults(SearchResult searchResult, List<Criteria> criteriaList, Dataset db) {
 		try {
 			List<LineSimResult> results = searchResult.getResults();
 			int numCriteria = criteriaList.size();
@@ -1079,66 +1186,14 @@ public class UI extends JFrame {
 				updateTexts();
 			}
 
-			tableModel.setRowCount(0);
-
 			// Update Status Bar
 			if (totalFoundLabel != null) {
 				totalFoundLabel.setText(MessageFormat.format(bundle.getString("status.total"),
 						searchResult.getTotalFound(), searchResult.getTotalResults()));
 			}
 
-			int tableRowIndex = 1;
-			for (LineSimResult res : results) {
-				String[] cand = res.getCandidate();
-
-				Object[] rowValues = new Object[tableModel.getColumnCount()];
-				// Column 0: Table Relative Index
-				rowValues[0] = tableRowIndex++;
-
-				// Column 1: File Row Index (stored at the end of the candidate array)
-				rowValues[1] = (cand != null && cand.length > 0) ? cand[cand.length - 1] : "-";
-
-				int currentCell = 2;
-				// Add values for selected columns
-				for (ConfigManager.ColumnConfig cc : availableColumns) {
-					int idx = cc.index;
-					rowValues[currentCell++] = (cand != null && idx >= 0 && idx < cand.length) ? cand[idx] : "";
-				}
-
-				// Add Total Score before criteria
-				rowValues[currentCell++] = res.getScore();
-
-				SimResult[] simResults = res.getSimResults();
-
-				for (int i = 0; i < numCriteria; i++) {
-					SimResult sr = simResults[i];
-
-					if (sr != null && (sr.getScore() > 0 || sr.getValue() != null)) {
-						String val = (sr.getValue() != null) ? sr.getValue().trim() : "";
-						rowValues[currentCell++] = val.isEmpty() ? "-" : val;
-						rowValues[currentCell++] = sr.getSpellingScore();
-						rowValues[currentCell++] = sr.getPhoneticScore();
-					} else {
-						rowValues[currentCell++] = "";
-						rowValues[currentCell++] = 0.0;
-						rowValues[currentCell++] = 0.0;
-					}
-				}
-				// Hidden data column is last
-				rowValues[rowValues.length - 1] = res;
-
-				tableModel.addRow(rowValues);
-			}
-
-			// Save original table data for sorting
-			originalTableData = new ArrayList<>();
-			for (int i = 0; i < tableModel.getRowCount(); i++) {
-				Object[] row = new Object[tableModel.getColumnCount()];
-				for (int j = 0; j < tableModel.getColumnCount(); j++) {
-					row[j] = tableModel.getValueAt(i, j);
-				}
-				originalTableData.add(row);
-			}
+			tableModel.setResults(db, results,
+					availableColumns.stream().mapToInt(cc -> cc.index).toArray(), numCriteria);
 
 			lastSortedColumn = -1;
 			sortState = 0;
@@ -1151,7 +1206,7 @@ public class UI extends JFrame {
 	}
 
 	private void sortTableByColumn(int column) {
-		if (originalTableData == null || originalTableData.isEmpty()) {
+		if (tableModel.getRowCount() == 0) {
 			return;
 		}
 
@@ -1165,60 +1220,9 @@ public class UI extends JFrame {
 		}
 
 		if (sortState == 0) {
-			// Restore original unsorted data
-			tableModel.setRowCount(0);
-			for (Object[] row : originalTableData) {
-				tableModel.addRow(row);
-			}
+			tableModel.unsort();
 		} else {
-			// Sort the data
-			List<Object[]> sortedData = new ArrayList<>(originalTableData);
-			final int sortColumn = column;
-			final boolean ascending = (sortState == 2);
-
-			sortedData.sort((row1, row2) -> {
-				Object val1 = row1[sortColumn];
-				Object val2 = row2[sortColumn];
-
-				int comparison = compareValues(val1, val2);
-				return ascending ? comparison : -comparison;
-			});
-
-			// Update table with sorted data
-			tableModel.setRowCount(0);
-			for (Object[] row : sortedData) {
-				tableModel.addRow(row);
-			}
-		}
-	}
-
-	private int compareValues(Object val1, Object val2) {
-		// Handle null values
-		if (val1 == null && val2 == null) {
-			return 0;
-		}
-		if (val1 == null) {
-			return -1;
-		}
-		if (val2 == null) {
-			return 1;
-		}
-
-		String str1 = val1.toString();
-		String str2 = val2.toString();
-
-		// Try to parse as numbers (for percentages and numeric values)
-		try {
-			// Remove % sign if present
-			String num1 = str1.replace("%", "").trim();
-			String num2 = str2.replace("%", "").trim();
-
-			double d1 = Double.parseDouble(num1);
-			double d2 = Double.parseDouble(num2);
-			return Double.compare(d1, d2);
-		} catch (NumberFormatException e) {
-			// Fall back to string comparison
-			return str1.compareToIgnoreCase(str2);
+			tableModel.sort(column, sortState == 2);
 		}
 	}
 
@@ -1279,46 +1283,79 @@ public class UI extends JFrame {
 	}
 
 	private void saveCSV(File file) {
-		if (lastSearchResult == null || lastSearchResult.getAllFoundResults() == null) {
+		if (lastSearchResult == null) {
 			return;
 		}
 
-		try (FileWriter out = new FileWriter(file)) {
-			String[] originalHeaders = fetchOriginalHeaders();
+		SearchResult searchResult = lastSearchResult;
+		RankedResults ranking = lastRanking;
+		double threshold = lastSearchThreshold;
+		String[] originalHeaders = fetchOriginalHeaders();
+		setCursor(java.awt.Cursor.getPredefinedCursor(java.awt.Cursor.WAIT_CURSOR));
 
-			// Write Headers (original CSV format)
-			for (int i = 0; i < originalHeaders.length; i++) {
-				out.write(escapeCSV(originalHeaders[i]));
-				if (i < originalHeaders.length - 1) {
-					out.write(",");
+		// Read the lines and write the file in background
+		SwingWorker<List<LineSimResult>, Void> worker = new SwingWorker<>() {
+			@Override
+			protected List<LineSimResult> doInBackground() throws Exception {
+				// Interactive searches only keep the top N lines: read all of them from the ranking
+				List<LineSimResult> found = searchResult.getAllFoundResults();
+				if (found == null) {
+					found = ranking.select(threshold, 0, true).getAllFoundResults();
 				}
-			}
-			out.write("\n");
-
-			// Write Data for ALL found results
-			for (LineSimResult res : lastSearchResult.getAllFoundResults()) {
-				String[] cand = res.getCandidate();
-				// Use the candidate array which contains the original fields (except the last
-				// element which is the row index)
-				int numFields = originalHeaders.length;
-				for (int k = 0; k < numFields; k++) {
-					String val = (k < cand.length) ? cand[k] : "";
-					out.write(escapeCSV(val));
-					if (k < numFields - 1) {
-						out.write(",");
+
+				try (FileWriter out = new FileWriter(file, StandardCharsets.UTF_8)) {
+					// Write Headers (original CSV format)
+					for (int i = 0; i < originalHeaders.length; i++) {
+						out.write(CsvParser.escape(originalHeaders[i]));
+						if (i < originalHeaders.length - 1) {
+							out.write(",");
+						}
 					}
+					out.write("\n");
+
+					// Write Data for ALL found results
+					for (LineSimResult res : found) {
+						String[] cand = res.getCandidate();
+						// Use the candidate array which contains the original fields
+						int numFields = originalHeaders.length;
+						for (int k = 0; k < numFields; k++) {
+							String val = (k < cand.length) ? cand[k] : "";
+							out.write(CsvParser.escape(val));
+							if (k < numFields - 1) {
+								out.write(",");
+							}
+						}
+						out.write("\n");
+					}
+				}
+
+				if (Desktop.isDesktopSupported()) {
+					Desktop.getDesktop().open(file);
 				}
-				out.write("\n");
+				return found;
 			}
 
-			if (Desktop.isDesktopSupported()) {
-				Desktop.getDesktop().open(file);
+			@Override
+			protected void done() {
+				try {
+					List<LineSimResult> found = get();
+					if (searchResult.getAllFoundResults() == null) {
+						searchResult.setAllFoundResults(found);
+					}
+				} catch (java.util.concurrent.ExecutionException e) {
+					e.getCause().printStackTrace();
+					JOptionPane.showMessageDialog(UI.this,
+							MessageFormat.format(bundle.getString("dialog.export.failed"), e.getCause().getMessage()));
+				} catch (Exception e) {
+					e.printStackTrace();
+					JOptionPane.showMessageDialog(UI.this,
+							MessageFormat.format(bundle.getString("dialog.export.failed"), e.getMessage()));
+				} finally {
+					setCursor(java.awt.Cursor.getDefaultCursor());
+				}
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
-			JOptionPane.showMessageDialog(this,
-					MessageFormat.format(bundle.getString("dialog.export.failed"), e.getMessage()));
-		}
+		};
+		worker.execute();
 	}
 
 	private String[] fetchOriginalHeaders() {
@@ -1327,92 +1364,26 @@ public class UI extends JFrame {
 			return new String[0];
 		}
 
-		try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(file))) {
-			String headerLine = br.readLine();
-			if (headerLine != null) {
-				return parseCSVLine(headerLine);
-			}
+		try {
+			return CsvLoader.readHeader(file);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
 		return new String[0];
 	}
 
-	private String[] parseCSVLine(String line) {
-		if (line == null || line.trim().isEmpty()) {
-			return new String[0];
-		}
-		// Simple CSV parser - splits on comma or semicolon
-		String[] parts = line.split("[,;]");
-		for (int i = 0; i < parts.length; i++) {
-			parts[i] = parts[i].trim();
-			// Remove quotes if present
-			if (parts[i].startsWith("\"") && parts[i].endsWith("\"")) {
-				parts[i] = parts[i].substring(1, parts[i].length() - 1).replace("\"\"", "\"");
+	/**
+	 * The candidate written back as a CSV line, as it reads with the loader.
+	 */
+	private String toCSVLine(String[] fields) {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0) {
+				sb.append(',');
 			}
+			sb.append(CsvParser.escape(fields[i]));
 		}
-		return parts;
-	}
-
-	private String escapeCSV(String value) {
-		if (value == null) {
-			return "";
-		}
-		if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
-			return "\"" + value.replace("\"", "\"\"") + "\"";
-		}
-		return value;
-	}
-
-	private java.util.Map<Integer, String> fetchOriginalLines() {
-		java.util.Map<Integer, String> lineMap = new java.util.HashMap<>();
-		java.util.Set<Integer> neededIndices = new java.util.HashSet<>();
-
-		// Collect indices from table (Column 1 is File Row Index)
-		for (int i = 0; i < tableModel.getRowCount(); i++) {
-			try {
-				Object val = tableModel.getValueAt(i, 1);
-				if (val != null) {
-					neededIndices.add(Integer.parseInt(val.toString()));
-				}
-			} catch (NumberFormatException e) {
-				// Ignore non-numeric indices
-			}
-		}
-
-		if (neededIndices.isEmpty()) {
-			return lineMap;
-		}
-
-		File file = new File(sourcePathField.getText());
-		if (!file.exists()) {
-			return lineMap;
-		}
-
-		// Read file in single pass
-		try (java.io.BufferedReader br = new java.io.BufferedReader(new java.io.FileReader(file))) {
-			String line;
-			int currentLine = 1; // 1-based index
-			// Optimize: stop when we found all needed lines if max index is reached?
-			// Since file might not be sorted by index if shuffled, we can't stop early
-			// unless we track found count.
-			int foundCount = 0;
-			int totalNeeded = neededIndices.size();
-
-			while ((line = br.readLine()) != null) {
-				if (neededIndices.contains(currentLine)) {
-					lineMap.put(currentLine, line);
-					foundCount++;
-					if (foundCount >= totalNeeded) {
-						break;
-					}
-				}
-				currentLine++;
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
-		return lineMap;
+		return sb.toString();
 	}
 
 	private void exportToExcel() {
@@ -1449,8 +1420,7 @@ public class UI extends JFrame {
 	private void saveExcel(File selectedFile) {
 		try (Workbook workbook = new XSSFWorkbook(); FileOutputStream fileOut = new FileOutputStream(selectedFile)) {
 
-			// Fetch original lines and headers
-			java.util.Map<Integer, String> originalLines = fetchOriginalLines();
+			// Original fields come from the loaded candidates; only the header is read
 			String[] originalHeaders = fetchOriginalHeaders();
 
 			Sheet sheet = workbook.createSheet("Search Results");
@@ -1518,9 +1488,7 @@ public class UI extends JFrame {
 
 					// Handle the HIDDEN_DATA column separately (it's the last one)
 					if (j == tableModel.getColumnCount() - 1) {
-						int fileRowIdx = Integer.parseInt(tableModel.getValueAt(i, 1).toString());
-						String fullLine = originalLines.getOrDefault(fileRowIdx, "");
-						cell.setCellValue(fullLine);
+						cell.setCellValue(toCSVLine(((LineSimResult) val).getCandidate()));
 						continue;
 					}
 
@@ -1539,18 +1507,9 @@ public class UI extends JFrame {
 				}
 
 				// Append original row fields as individual columns
-				try {
-					int fileRowIdx = Integer.parseInt(tableModel.getValueAt(i, 1).toString());
-					String fullLine = originalLines.getOrDefault(fileRowIdx, "");
-					String[] fields = parseCSVLine(fullLine);
-					for (String field : fields) {
-						row.createCell(colIdx++).setCellValue(field);
-					}
-				} catch (Exception e) {
-					// Write empty cells if parsing fails
-					for (int k = 0; k < originalHeaders.length; k++) {
-						row.createCell(colIdx++);
-					}
+				LineSimResult res = tableModel.getResult(i);
+				for (String field : res.getCandidate()) {
+					row.createCell(colIdx++).setCellValue(field);
 				}
 			}
 
@@ -0,0 +1,422 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.makfuzz.core.Criteria.MatchingType;
+
+/**
+ * Inverted index over one prepared column, used to skip rows that cannot
+ * satisfy a criterion: rows without the value of an EXACT criterion, rows
+ * without any literal a REGEX criterion requires, and rows that cannot reach
+ * a SIMILARITY criterion's minimum spelling / phonetic scores.
+ * <p>
+ * Rows are grouped by distinct value. Candidate values are found through
+ * character postings (value → common character count with the criterion) and
+ * through phonetic codes (code → values), then checked against an upper bound
+ * of the Jaro-Winkler similarity. The bound never under-estimates the real
+ * score, so pruning is lossless: recall is guaranteed.
+ * <p>
+ * Single characters are used as grams on purpose: Jaro matches characters
+ * within a sliding window, not adjacent pairs, so only unigram counts give a
+ * sound bound.
+ */
+public class BlockingIndex {
+
+	// Slack for floating-point rounding between the bound and the real score
+	private static final double EPSILON = 1e-9;
+
+	private final String[] keys;
+
+	// Rows of each key: keyRows[keyRowStart[k] .. keyRowStart[k + 1])
+	private final int[] keyRowStart;
+	private final int[] keyRows;
+
+	private volatile CharPostings keyPostings;
+
+	// Key ids by value folded as String#equalsIgnoreCase compares them
+	private volatile Map<String, int[]> foldedKeys;
+
+	private volatile PhoneticBlocks frenchBlocks;
+	private volatile PhoneticBlocks genericBlocks;
+
+	private BlockingIndex(String[] keys, int[] keyRowStart, int[] keyRows) {
+		this.keys = keys;
+		this.keyRowStart = keyRowStart;
+		this.keyRows = keyRows;
+	}
+
+	/**
+	 * @param dictionary distinct values of the column, the empty one first
+	 * @param ids        value id of each row
+	 */
+	static BlockingIndex build(String[] dictionary, int[] ids) {
+		// Keys are the value ids; the empty value has no rows
+		int[] start = new int[dictionary.length + 1];
+		for (int id : ids) {
+			if (id > 0) {
+				start[id + 1]++;
+			}
+		}
+		for (int k = 0; k < dictionary.length; k++) {
+			start[k + 1] += start[k];
+		}
+
+		int[] fill = start.clone();
+		int[] rows = new int[start[dictionary.length]];
+		for (int row = 0; row < ids.length; row++) {
+			if (ids[row] > 0) {
+				rows[fill[ids[row]]++] = row;
+			}
+		}
+
+		return new BlockingIndex(dictionary, start, rows);
+	}
+
+	public int getDistinctCount() {
+		return keys.length - 1;
+	}
+
+	/**
+	 * Keys equal to {@code value}, ignoring case.
+	 */
+	int[] exactKeys(String value) {
+		int[] ids = foldedKeys().get(fold(value));
+		return ids == null ? new int[0] : ids;
+	}
+
+	/**
+	 * Keys containing one of the literals of {@code literals}.
+	 */
+	int[] literalKeys(LiteralMatcher literals) {
+		int[] matching = new int[keys.length];
+		int count = 0;
+		for (int k = 1; k < keys.length; k++) {
+			if (literals.containsAny(keys[k])) {
+				matching[count++] = k;
+			}
+		}
+		return java.util.Arrays.copyOf(matching, count);
+	}
+
+	/**
+	 * Number of rows of the keys {@code ks}.
+	 */
+	int rowCount(int[] ks) {
+		int count = 0;
+		for (int k : ks) {
+			count += keyRowStart[k + 1] - keyRowStart[k];
+		}
+		return count;
+	}
+
+	void addRows(int[] ks, BitSet rows) {
+		for (int k : ks) {
+			addKeyRows(k, rows);
+		}
+	}
+
+	/**
+	 * Adds to {@code rows} every row whose value may reach the minimum scores of
+	 * {@code c}. Returns false, leaving {@code rows} untouched, when the criterion
+	 * cannot exclude anything.
+	 *
+	 * @param critPhonetic alternatives of the criterion's phonetic code
+	 * @param keyCodes     alternatives of the phonetic codes of the column
+	 *                     values, by id, in the search language
+	 */
+	boolean addCandidateRows(Criteria c, String[] critPhonetic, String[][] keyCodes, boolean isFrench,
+			BitSet rows) {
+		if (c.getMatchingType() != MatchingType.SIMILARITY || c.isBlank()) {
+			return false;
+		}
+
+		boolean bySpelling = c.getMinSpellingScore() > 0;
+		boolean byPhonetic = c.getMinPhoneticScore() > 0 && critPhonetic != null;
+		if (!bySpelling && !byPhonetic) {
+			return false;
+		}
+
+		boolean[] candidates = null;
+
+		if (bySpelling) {
+			candidates = new boolean[keys.length];
+			String value = c.getValue();
+			int[] common = keyPostings().commonCounts(value);
+			for (int k = 0; k < keys.length; k++) {
+				if (common[k] > 0 && jaroWinklerUpperBound(keys[k], value, common[k]) >= c.getMinSpellingScore()
+						- EPSILON) {
+					candidates[k] = true;
+				}
+			}
+		}
+
+		if (byPhonetic) {
+			boolean[] phonetic = phoneticBlocks(keyCodes, isFrench).candidateKeys(critPhonetic,
+					c.getMinPhoneticScore(), keys.length);
+			if (candidates == null) {
+				candidates = phonetic;
+			} else {
+				for (int k = 0; k < keys.length; k++) {
+					candidates[k] &= phonetic[k];
+				}
+			}
+		}
+
+		for (int k = 0; k < keys.length; k++) {
+			if (candidates[k]) {
+				addKeyRows(k, rows);
+			}
+		}
+		return true;
+	}
+
+	private void addKeyRows(int k, BitSet rows) {
+		for (int i = keyRowStart[k]; i < keyRowStart[k + 1]; i++) {
+			rows.set(keyRows[i]);
+		}
+	}
+
+	private CharPostings keyPostings() {
+		CharPostings postings = keyPostings;
+		if (postings == null) {
+			synchronized (this) {
+				postings = keyPostings;
+				if (postings == null) {
+					postings = new CharPostings(keys);
+					keyPostings = postings;
+				}
+			}
+		}
+		return postings;
+	}
+
+	private Map<String, int[]> foldedKeys() {
+		Map<String, int[]> folded = foldedKeys;
+		if (folded == null) {
+			synchronized (this) {
+				folded = foldedKeys;
+				if (folded == null) {
+					folded = new HashMap<>();
+					for (int k = 1; k < keys.length; k++) {
+						folded.merge(fold(keys[k]), new int[] { k }, (a, b) -> {
+							int[] merged = java.util.Arrays.copyOf(a, a.length + 1);
+							merged[a.length] = b[0];
+							return merged;
+						});
+					}
+					foldedKeys = folded;
+				}
+			}
+		}
+		return folded;
+	}
+
+	/**
+	 * Strings equal ignoring case (String#equalsIgnoreCase) fold to the same
+	 * string.
+	 */
+	private static String fold(String s) {
+		StringBuilder sb = new StringBuilder(s.length());
+		s.codePoints().forEach(cp -> sb.appendCodePoint(Character.toLowerCase(Character.toUpperCase(cp))));
+		return sb.toString();
+	}
+
+	private PhoneticBlocks phoneticBlocks(String[][] keyCodes, boolean isFrench) {
+		PhoneticBlocks blocks = isFrench ? frenchBlocks : genericBlocks;
+		if (blocks == null) {
+			synchronized (this) {
+				blocks = isFrench ? frenchBlocks : genericBlocks;
+				if (blocks == null) {
+					blocks = new PhoneticBlocks(keyCodes);
+					if (isFrench) {
+						frenchBlocks = blocks;
+					} else {
+						genericBlocks = blocks;
+					}
+				}
+			}
+		}
+		return blocks;
+	}
+
+	/**
+	 * Upper bound of the commons-text Jaro-Winkler similarity between two
+	 * strings sharing at most {@code common} characters (as a multiset).
+	 */
+	static double jaroWinklerUpperBound(String a, String b, int common) {
+		if (a.equals(b)) {
+			return 1.0;
+		}
+
+		int m = Math.min(common, Math.min(a.length(), b.length()));
+		if (m == 0) {
+			return 0.0;
+		}
+
+		// Best case: no transposition
+		double j = ((double) m / a.length() + (double) m / b.length() + 1.0) / 3;
+		if (j < 0.7) {
+			return j;
+		}
+
+		int prefix = 0;
+		int maxPrefix = Math.min(4, Math.min(a.length(), b.length()));
+		while (prefix < maxPrefix && a.charAt(prefix) == b.charAt(prefix)) {
+			prefix++;
+		}
+		return j + 0.1 * prefix * (1.0 - j);
+	}
+
+	/**
+	 * Distinct phonetic code alternatives of the column, with the keys whose
+	 * code has each one.
+	 */
+	private class PhoneticBlocks {
+
+		private final String[] codes;
+
+		// Keys of each code: codeKeys[codeKeyStart[c] .. codeKeyStart[c + 1])
+		private final int[] codeKeyStart;
+		private final int[] codeKeys;
+
+		private final Map<String, Integer> codeIds = new HashMap<>();
+		private final CharPostings codePostings;
+
+		PhoneticBlocks(String[][] keyCodes) {
+			List<String> codeList = new ArrayList<>();
+			List<Integer> counts = new ArrayList<>();
+
+			// Alternatives of a code are distinct: each key is listed once per code
+			int nbPairs = 0;
+			for (int k = 0; k < keys.length; k++) {
+				for (String code : keyCodes[k]) {
+					Integer id = codeIds.get(code);
+					if (id == null) {
+						id = codeList.size();
+						codeIds.put(code, id);
+						codeList.add(code);
+						counts.add(0);
+					}
+					counts.set(id, counts.get(id) + 1);
+					nbPairs++;
+				}
+			}
+
+			codes = codeList.toArray(new String[0]);
+			codeKeyStart = new int[codes.length + 1];
+			for (int c = 0; c < codes.length; c++) {
+				codeKeyStart[c + 1] = codeKeyStart[c] + counts.get(c);
+			}
+
+			int[] fill = codeKeyStart.clone();
+			codeKeys = new int[nbPairs];
+			for (int k = 0; k < keys.length; k++) {
+				for (String code : keyCodes[k]) {
+					codeKeys[fill[codeIds.get(code)]++] = k;
+				}
+			}
+
+			codePostings = new CharPostings(codes);
+		}
+
+		/**
+		 * Keys whose code may score at least {@code minPhonetic} against the
+		 * criterion's: the score is that of the best pair of alternatives, so
+		 * each alternative of the criterion is checked on its own.
+		 */
+		boolean[] candidateKeys(String[] critPhonetic, double minPhonetic, int nbKeys) {
+			boolean[] candidates = new boolean[nbKeys];
+
+			for (String alternative : critPhonetic) {
+				// Identical alternative: phonetic score is 1.0
+				Integer same = codeIds.get(alternative);
+				if (same != null) {
+					markKeys(same, candidates);
+				}
+
+				int[] common = codePostings.commonCounts(alternative);
+				for (int c = 0; c < codes.length; c++) {
+					if (common[c] > 0 && jaroWinklerUpperBound(codes[c], alternative, common[c]) >= minPhonetic
+							- EPSILON) {
+						markKeys(c, candidates);
+					}
+				}
+			}
+			return candidates;
+		}
+
+		private void markKeys(int code, boolean[] candidates) {
+			for (int i = codeKeyStart[code]; i < codeKeyStart[code + 1]; i++) {
+				candidates[codeKeys[i]] = true;
+			}
+		}
+	}
+
+	/**
+	 * Character → (string id, occurrence count) postings over a set of strings.
+	 */
+	private static class CharPostings {
+
+		private final int nbStrings;
+		private final Map<Character, int[]> ids = new HashMap<>();
+		private final Map<Character, int[]> counts = new HashMap<>();
+
+		CharPostings(String[] strings) {
+			this.nbStrings = strings.length;
+
+			Map<Character, List<int[]>> postings = new HashMap<>();
+			Map<Character, Integer> occurrences = new HashMap<>();
+			for (int s = 0; s < strings.length; s++) {
+				occurrences.clear();
+				for (int i = 0; i < strings[s].length(); i++) {
+					occurrences.merge(strings[s].charAt(i), 1, Integer::sum);
+				}
+				for (Map.Entry<Character, Integer> e : occurrences.entrySet()) {
+					postings.computeIfAbsent(e.getKey(), ch -> new ArrayList<>())
+							.add(new int[] { s, e.getValue() });
+				}
+			}
+
+			for (Map.Entry<Character, List<int[]>> e : postings.entrySet()) {
+				List<int[]> list = e.getValue();
+				int[] idArray = new int[list.size()];
+				int[] countArray = new int[list.size()];
+				for (int i = 0; i < list.size(); i++) {
+					idArray[i] = list.get(i)[0];
+					countArray[i] = list.get(i)[1];
+				}
+				ids.put(e.getKey(), idArray);
+				counts.put(e.getKey(), countArray);
+			}
+		}
+
+		/**
+		 * For every string, the size of the multiset intersection of its characters
+		 * with those of {@code query}.
+		 */
+		int[] commonCounts(String query) {
+			Map<Character, Integer> queryCounts = new HashMap<>();
+			for (int i = 0; i < query.length(); i++) {
+				queryCounts.merge(query.charAt(i), 1, Integer::sum);
+			}
+
+			int[] common = new int[nbStrings];
+			for (Map.Entry<Character, Integer> e : queryCounts.entrySet()) {
+				int[] idArray = ids.get(e.getKey());
+				if (idArray == null) {
+					continue;
+				}
+				int[] countArray = counts.get(e.getKey());
+				int q = e.getValue();
+				for (int i = 0; i < idArray.length; i++) {
+					common[idArray[i]] += Math.min(q, countArray[i]);
+				}
+			}
+			return common;
+		}
+	}
+}
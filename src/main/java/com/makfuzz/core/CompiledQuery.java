@@ -0,0 +1,272 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import com.makfuzz.core.Criteria.MatchingType;
+
+/**
+ * A search compiled once for {@link Fuzz#bestMatch(Dataset, CompiledQuery,
+ * double, int, boolean)}: the criteria phonetic codes and character masks,
+ * their weights and patterns, and one scorer per criterion, so the scan does
+ * no per-cell dispatch on the matching type.
+ * <p>
+ * Immutable and thread-safe. Queries compiled from equal criteria, columns,
+ * language and filter are equal, so a compiled query can be kept and reused
+ * when the same search is run again.
+ */
+public final class CompiledQuery {
+
+	private record CriterionKey(MatchingType type, String value, double spellingWeight, double phoneticWeight,
+			double minSpelling, double minPhonetic) {
+	}
+
+	private final List<Criteria> criterias;
+	private final List<Integer> searchColumns;
+	private final boolean french;
+	private final RowFilter filter;
+
+	private final String[][] phoneticCodes;
+	private final Scorer[] scorers;
+	private final int[] evaluationOrder;
+	private final boolean hasSimilarity;
+
+	private final List<CriterionKey> key;
+
+	private CompiledQuery(List<Criteria> criterias, List<Integer> searchColumns, boolean french, RowFilter filter) {
+		this.criterias = Collections.unmodifiableList(new ArrayList<>(criterias));
+		this.searchColumns = List.copyOf(searchColumns);
+		this.french = french;
+		this.filter = filter;
+
+		int count = criterias.size();
+		phoneticCodes = new String[count][];
+		scorers = new Scorer[count];
+		List<CriterionKey> keys = new ArrayList<>(count);
+		boolean similarity = false;
+
+		for (int i = 0; i < count; i++) {
+			Criteria c = criterias.get(i);
+			if (c == null || c.isBlank()) {
+				throw new IllegalArgumentException("Criteria " + (i + 1) + " has no value");
+			}
+
+			// Calculate search criteria phonetic code ONCE
+			phoneticCodes[i] = PhoneticAlternatives.split(Fuzz.phoneticCode(c.getValue(), french), null);
+			scorers[i] = switch (c.getMatchingType()) {
+			case EXACT -> new ExactScorer(c);
+			case REGEX -> new RegexScorer(c);
+			case SIMILARITY -> new SimilarityScorer(c, phoneticCodes[i]);
+			};
+			similarity |= c.getMatchingType() == MatchingType.SIMILARITY;
+			keys.add(new CriterionKey(c.getMatchingType(), c.getValue(), c.getSpellingWeight(), c.getPhoneticWeight(),
+					c.getMinSpellingScore(), c.getMinPhoneticScore()));
+		}
+
+		hasSimilarity = similarity;
+		key = keys;
+
+		// EXACT first, then REGEX (cheap, and they drop the line when no column
+		// matches), then SIMILARITY
+		evaluationOrder = IntStream.range(0, count).boxed()
+				.sorted(Comparator.comparingInt(i -> switch (criterias.get(i).getMatchingType()) {
+				case EXACT -> 0;
+				case REGEX -> 1;
+				case SIMILARITY -> 2;
+				})).mapToInt(Integer::intValue).toArray();
+	}
+
+	public static CompiledQuery compile(List<Criteria> criterias, List<Integer> searchColumns, String lang) {
+		return compile(criterias, searchColumns, lang, null);
+	}
+
+	/**
+	 * A query searching only the rows {@code filter} keeps (all rows when
+	 * null).
+	 */
+	public static CompiledQuery compile(List<Criteria> criterias, List<Integer> searchColumns, String lang,
+			RowFilter filter) {
+		return new CompiledQuery(criterias, searchColumns, "fr".equalsIgnoreCase(lang), filter);
+	}
+
+	public List<Criteria> getCriterias() {
+		return criterias;
+	}
+
+	public List<Integer> getSearchColumns() {
+		return searchColumns;
+	}
+
+	public boolean isFrench() {
+		return french;
+	}
+
+	/**
+	 * The rows searched, null for all of them.
+	 */
+	public RowFilter getFilter() {
+		return filter;
+	}
+
+	/**
+	 * Phonetic code of each criterion, split into its alternatives.
+	 */
+	String[][] getPhoneticCodes() {
+		return phoneticCodes;
+	}
+
+	Scorer[] getScorers() {
+		return scorers;
+	}
+
+	int[] getEvaluationOrder() {
+		return evaluationOrder;
+	}
+
+	boolean hasSimilarity() {
+		return hasSimilarity;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return o instanceof CompiledQuery q && french == q.french && key.equals(q.key)
+				&& searchColumns.equals(q.searchColumns) && Objects.equals(filter, q.filter);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(key, searchColumns, french, filter);
+	}
+
+	/**
+	 * Scores one criterion against the cells of a line.
+	 */
+	abstract static class Scorer {
+		protected final double minSpelling;
+		protected final double minPhonetic;
+		private final double spellingWeight;
+		private final double phoneticWeight;
+		private final double totalWeight;
+
+		Scorer(Criteria c) {
+			minSpelling = c.getMinSpellingScore();
+			minPhonetic = c.getMinPhoneticScore();
+			spellingWeight = c.getSpellingWeight();
+			phoneticWeight = c.getPhoneticWeight();
+			totalWeight = spellingWeight + phoneticWeight;
+		}
+
+		/**
+		 * Scores a non-empty cell, keeping in {@code line} the best column reaching
+		 * the minimum scores of criterion {@code i}. Returns whether the cell
+		 * matches an EXACT / REGEX criterion.
+		 */
+		abstract boolean score(LineScores line, int i, String cell, String[] cellPhonetic, int columnIndex);
+
+		/**
+		 * Whether the line is dropped when no cell matches.
+		 */
+		abstract boolean requiresMatch();
+
+		final void offer(LineScores line, int i, double spellingScore, double phoneticScore, int columnIndex,
+				String cell) {
+			// Same formula as Fuzz.calculateScore, for identical scores
+			double score = totalWeight == 0 ? 0.0
+					: (spellingScore * spellingWeight + phoneticScore * phoneticWeight) / totalWeight;
+
+			if (Double.compare(score, line.scores[i]) > 0 && spellingScore >= minSpelling
+					&& phoneticScore >= minPhonetic) {
+				line.phoneticScores[i] = phoneticScore;
+				line.spellingScores[i] = spellingScore;
+				line.scores[i] = score;
+				line.columns[i] = columnIndex;
+				line.values[i] = cell;
+			}
+		}
+	}
+
+	private static final class ExactScorer extends Scorer {
+		private final String value;
+
+		ExactScorer(Criteria c) {
+			super(c);
+			value = c.getValue();
+		}
+
+		@Override
+		boolean score(LineScores line, int i, String cell, String[] cellPhonetic, int columnIndex) {
+			if (!cell.equalsIgnoreCase(value)) {
+				return false;
+			}
+			offer(line, i, 1.0, 1.0, columnIndex, cell);
+			return true;
+		}
+
+		@Override
+		boolean requiresMatch() {
+			return true;
+		}
+	}
+
+	private static final class RegexScorer extends Scorer {
+		private final Pattern pattern;
+
+		RegexScorer(Criteria c) {
+			super(c);
+			pattern = c.getPattern();
+		}
+
+		@Override
+		boolean score(LineScores line, int i, String cell, String[] cellPhonetic, int columnIndex) {
+			if (!line.matcher(i, pattern, cell).find()) {
+				return false;
+			}
+			offer(line, i, 1.0, 1.0, columnIndex, cell);
+			return true;
+		}
+
+		@Override
+		boolean requiresMatch() {
+			return true;
+		}
+	}
+
+	private static final class SimilarityScorer extends Scorer {
+		private final String value;
+		private final String[] phonetic;
+		private final long valueMask;
+		private final long[] phoneticMasks;
+
+		SimilarityScorer(Criteria c, String[] phonetic) {
+			super(c);
+			this.value = c.getValue();
+			this.phonetic = phonetic;
+			this.valueMask = JaroWinkler.charMask(value);
+			this.phoneticMasks = PhoneticAlternatives.masks(phonetic);
+		}
+
+		@Override
+		boolean score(LineScores line, int i, String cell, String[] cellPhonetic, int columnIndex) {
+			// Exact scores from the minimums up, some lower value below them
+			double spellingScore = JaroWinkler.similarity(cell, value, valueMask, minSpelling);
+			if (spellingScore < minSpelling) {
+				return false; // this column cannot qualify, whatever its phonetic score
+			}
+
+			double phoneticScore = PhoneticAlternatives.similarity(cellPhonetic, phonetic, phoneticMasks,
+					minPhonetic);
+			offer(line, i, spellingScore, phoneticScore, columnIndex, cell);
+			return false;
+		}
+
+		@Override
+		boolean requiresMatch() {
+			return false;
+		}
+	}
+}
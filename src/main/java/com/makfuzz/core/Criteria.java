@@ -1,5 +1,7 @@
 package com.makfuzz.core;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -13,6 +15,18 @@ public class Criteria {
 		REGEX, SIMILARITY, EXACT
 	}
 
+	// Patterns of recent regex criteria: the UI rebuilds its criteria on every
+	// search (patterns are immutable and thread-safe)
+	private static final Map<String, Pattern> PATTERNS = java.util.Collections
+			.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Pattern> eldest) {
+					return size() > 256;
+				}
+			});
+
 	public String value;
 	public double minSpellingScore;
 	public double minPhoneticScore;
@@ -35,7 +49,8 @@ public class Criteria {
 		// Compile regex pattern if matchingType is REGEX
 		if (matchingType == MatchingType.REGEX && this.value != null) {
 			try {
-				this.pattern = Pattern.compile(this.value, Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+				this.pattern = PATTERNS.computeIfAbsent(this.value,
+						v -> Pattern.compile(v, Pattern.CASE_INSENSITIVE | Pattern.DOTALL));
 			} catch (Exception ex) {
 				throw new IllegalStateException(ex);
 			}
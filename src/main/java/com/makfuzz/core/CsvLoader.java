@@ -0,0 +1,245 @@
+package com.makfuzz.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads a CSV file (header on the first record) into a {@link Dataset}
+ * without reading it as a whole: the file is split into chunks on line
+ * boundaries, and each chunk is memory-mapped and tokenized in parallel with
+ * a {@link CsvParser}. The delimiter is detected once, from the header.
+ * <p>
+ * A chunk boundary may fall inside a quoted field spanning several lines. A
+ * chunk that ends inside quotes is re-parsed together with the next one, so
+ * such files still load correctly, only with less parallelism.
+ */
+public class CsvLoader {
+
+	public interface ProgressListener {
+		void progress(long bytesDone, long bytesTotal);
+	}
+
+	private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+	// Enough for any sane header line
+	private static final int HEADER_PROBE = 64 * 1024;
+
+	private CsvLoader() {
+	}
+
+	public static Dataset load(File file, ProgressListener listener) throws IOException {
+		return load(file, listener, CHUNK_SIZE);
+	}
+
+	/**
+	 * {@link #load(File, ProgressListener)} with chunks of about
+	 * {@code chunkSize} bytes (tests use tiny ones to cross chunk boundaries).
+	 */
+	static Dataset load(File file, ProgressListener listener, int chunkSize) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int bom = bomLength(channel);
+			char delimiter = CsvParser.detectDelimiter(readFirstLine(channel, bom));
+
+			long[] bounds = splitOnLines(channel, size, chunkSize);
+			bounds[0] = bom;
+			int nbChunks = bounds.length - 1;
+
+			AtomicLong done = new AtomicLong();
+			List<Chunk> chunks;
+			try {
+				chunks = ScanPool.map(0, nbChunks, i -> {
+					Chunk chunk = parseChunk(channel, bounds[i], bounds[i + 1], delimiter, i == 0,
+							i == nbChunks - 1);
+					long bytes = done.addAndGet(bounds[i + 1] - bounds[i]);
+					if (listener != null) {
+						listener.progress(bytes, size);
+					}
+					return chunk;
+				});
+
+				// A chunk that ends inside a quoted field also invalidates the next one,
+				// which started in the middle of it: parse them again as one
+				List<Chunk> valid = new ArrayList<>(nbChunks);
+				int i = 0;
+				while (i < nbChunks) {
+					Chunk chunk = chunks.get(i);
+					int last = i;
+					while (chunk == null) {
+						last++;
+						chunk = parseChunk(channel, bounds[i], bounds[last + 1], delimiter, i == 0,
+								last == nbChunks - 1);
+					}
+					valid.add(chunk);
+					i = last + 1;
+				}
+				chunks = valid;
+			} catch (UncheckedIOException e) {
+				throw e.getCause();
+			}
+
+			// Stitch chunks in file order; line numbers become global (1-based)
+			int total = 0;
+			for (Chunk chunk : chunks) {
+				total += chunk.rows.size();
+			}
+
+			List<String[]> rows = new ArrayList<>(total);
+			int[] lineNumbers = new int[total];
+			int firstLine = 1;
+			for (Chunk chunk : chunks) {
+				for (int i = 0; i < chunk.rows.size(); i++) {
+					lineNumbers[rows.size()] = firstLine + chunk.lines[i];
+					rows.add(chunk.rows.get(i));
+				}
+				firstLine += chunk.lineCount;
+			}
+
+			return Dataset.of(rows, lineNumbers);
+		}
+	}
+
+	/**
+	 * Column names from the header record, or an empty array for an empty file.
+	 */
+	public static String[] readHeader(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			int bom = bomLength(channel);
+			CsvParser parser = new CsvParser(CsvParser.detectDelimiter(readFirstLine(channel, bom)));
+
+			// The header may itself hold quoted line breaks: widen until it is complete
+			long length = Math.min(size - bom, HEADER_PROBE);
+			while (true) {
+				boolean eof = bom + length >= size;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, bom, length);
+				if (parser.next(buffer, 0, buffer.limit(), eof) >= 0) {
+					return parser.isBlankRecord() ? new String[0] : parser.getFields(buffer);
+				}
+				length = Math.min(size - bom, Math.min(Integer.MAX_VALUE, length * 2));
+			}
+		}
+	}
+
+	private static int bomLength(FileChannel channel) throws IOException {
+		ByteBuffer head = ByteBuffer.allocate(3);
+		channel.read(head, 0);
+		return head.position() == 3 && (head.get(0) & 0xff) == 0xEF && (head.get(1) & 0xff) == 0xBB
+				&& (head.get(2) & 0xff) == 0xBF ? 3 : 0;
+	}
+
+	private static String readFirstLine(FileChannel channel, long from) throws IOException {
+		ByteBuffer probe = ByteBuffer.allocate(HEADER_PROBE);
+		channel.read(probe, from);
+		int n = 0;
+		while (n < probe.position() && probe.get(n) != '\n' && probe.get(n) != '\r') {
+			n++;
+		}
+		return new String(probe.array(), 0, n, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Chunk boundaries, each one (but the last) just after a '\n'.
+	 */
+	private static long[] splitOnLines(FileChannel channel, long size, int chunkSize) throws IOException {
+		List<Long> bounds = new ArrayList<>();
+		bounds.add(0L);
+
+		ByteBuffer probe = ByteBuffer.allocate(8192);
+		long pos = chunkSize;
+		while (pos < size) {
+			long next = -1;
+			long scan = pos;
+			while (next < 0 && scan < size) {
+				probe.clear();
+				int n = channel.read(probe, scan);
+				if (n <= 0) {
+					break;
+				}
+				for (int i = 0; i < n; i++) {
+					if (probe.get(i) == '\n') {
+						next = scan + i + 1;
+						break;
+					}
+				}
+				scan += n;
+			}
+			if (next < 0 || next >= size) {
+				break;
+			}
+			bounds.add(next);
+			pos = next + chunkSize;
+		}
+
+		bounds.add(size);
+		return bounds.stream().mapToLong(Long::longValue).toArray();
+	}
+
+	/**
+	 * Parses the records of [start, end), or returns null when the range ends
+	 * inside a quoted field (never when {@code eof}).
+	 */
+	private static Chunk parseChunk(FileChannel channel, long start, long end, char delimiter, boolean hasHeader,
+			boolean eof) {
+		Chunk chunk = new Chunk();
+		if (end <= start) {
+			return chunk;
+		}
+		if (end - start > Integer.MAX_VALUE) {
+			throw new UncheckedIOException(new IOException("Quoted field too large near offset " + start));
+		}
+
+		MappedByteBuffer buffer;
+		try {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		CsvParser parser = new CsvParser(delimiter);
+		int limit = buffer.limit();
+		boolean header = hasHeader;
+		int line = 0;
+		int pos = 0;
+		while (pos < limit) {
+			int next = parser.next(buffer, pos, limit, eof);
+			if (next < 0) {
+				return null;
+			}
+			if (header) {
+				header = false;
+			} else if (!parser.isBlankRecord()) {
+				chunk.add(parser.getFields(buffer), line);
+			}
+			line += parser.getLineCount();
+			pos = next;
+		}
+
+		chunk.lineCount = line;
+		return chunk;
+	}
+
+	private static class Chunk {
+		private final List<String[]> rows = new ArrayList<>();
+		private int[] lines = new int[16];
+		private int lineCount;
+
+		void add(String[] fields, int line) {
+			if (rows.size() == lines.length) {
+				lines = Arrays.copyOf(lines, lines.length * 2);
+			}
+			lines[rows.size()] = line;
+			rows.add(fields);
+		}
+	}
+}
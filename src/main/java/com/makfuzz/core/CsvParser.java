@@ -0,0 +1,251 @@
+package com.makfuzz.core;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * RFC 4180 tokenizer working on UTF-8 bytes. Fields may be quoted, with
+ * {@code ""} for an embedded quote, and quoted fields may contain delimiters
+ * and line breaks. Unquoted fields are trimmed; characters between a closing
+ * quote and the next delimiter are ignored.
+ * <p>
+ * {@link #next} only records where each field of the record lies in the
+ * buffer; a string is created only for the fields read with
+ * {@link #getField}. Instances are reusable but not thread-safe.
+ */
+public class CsvParser {
+
+	private static final char[] CANDIDATE_DELIMITERS = { ',', ';', '\t', '|' };
+
+	private final byte delimiter;
+
+	// Fields of the last record: [fieldStart[i], fieldEnd[i]) in the buffer
+	private int[] fieldStart = new int[16];
+	private int[] fieldEnd = new int[16];
+	private boolean[] fieldQuoted = new boolean[16];
+	private boolean[] fieldEscaped = new boolean[16];
+	private int fieldCount;
+
+	// Physical lines spanned by the last record
+	private int lineCount;
+
+	private byte[] scratch = new byte[256];
+
+	public CsvParser(char delimiter) {
+		if (delimiter > 0x7f || delimiter == '"' || delimiter == '\n' || delimiter == '\r') {
+			throw new IllegalArgumentException("Unsupported delimiter: " + delimiter);
+		}
+		this.delimiter = (byte) delimiter;
+	}
+
+	/**
+	 * Most frequent of ',', ';', tab and '|' outside quotes in the header line;
+	 * ',' when none is found.
+	 */
+	public static char detectDelimiter(String headerLine) {
+		int[] counts = new int[CANDIDATE_DELIMITERS.length];
+		boolean quoted = false;
+		for (int i = 0; i < headerLine.length(); i++) {
+			char ch = headerLine.charAt(i);
+			if (ch == '"') {
+				quoted = !quoted;
+			} else if (!quoted) {
+				for (int d = 0; d < CANDIDATE_DELIMITERS.length; d++) {
+					if (ch == CANDIDATE_DELIMITERS[d]) {
+						counts[d]++;
+					}
+				}
+			}
+		}
+
+		int best = 0;
+		for (int d = 1; d < CANDIDATE_DELIMITERS.length; d++) {
+			if (counts[d] > counts[best]) {
+				best = d;
+			}
+		}
+		return CANDIDATE_DELIMITERS[best];
+	}
+
+	/**
+	 * Quotes {@code value} when needed so that it reads back unchanged with any
+	 * of the delimiters {@link #detectDelimiter} can pick.
+	 */
+	public static String escape(String value) {
+		if (value == null) {
+			return "";
+		}
+
+		boolean quote = !value.isEmpty() && (value.charAt(0) <= ' ' || value.charAt(value.length() - 1) <= ' ');
+		for (int i = 0; i < value.length() && !quote; i++) {
+			char ch = value.charAt(i);
+			quote = ch == '"' || ch == '\n' || ch == '\r' || ch == ',' || ch == ';' || ch == '\t' || ch == '|';
+		}
+		return quote ? "\"" + value.replace("\"", "\"\"") + "\"" : value;
+	}
+
+	/**
+	 * Tokenizes the record starting at {@code pos}.
+	 *
+	 * @param eof whether {@code limit} is the end of the data: an unterminated
+	 *            quoted field is then closed there
+	 * @return the position after the record and its line terminator, or -1 when
+	 *         the data ends inside a quoted field and {@code eof} is false
+	 */
+	public int next(ByteBuffer buf, int pos, int limit, boolean eof) {
+		fieldCount = 0;
+		lineCount = 1;
+
+		int i = pos;
+		while (true) {
+			// Leading blanks
+			while (i < limit && isBlank(buf.get(i))) {
+				i++;
+			}
+
+			if (i < limit && buf.get(i) == '"') {
+				int start = ++i;
+				boolean escaped = false;
+				while (true) {
+					if (i >= limit) {
+						if (!eof) {
+							return -1;
+						}
+						break;
+					}
+					byte b = buf.get(i);
+					if (b == '"') {
+						if (i + 1 < limit && buf.get(i + 1) == '"') {
+							escaped = true;
+							i += 2;
+							continue;
+						}
+						break;
+					}
+					if (b == '\n' || (b == '\r' && !(i + 1 < limit && buf.get(i + 1) == '\n'))) {
+						lineCount++;
+					}
+					i++;
+				}
+				addField(start, i, true, escaped);
+
+				// Skip the closing quote and whatever follows up to the delimiter
+				while (i < limit && buf.get(i) != delimiter && buf.get(i) != '\n' && buf.get(i) != '\r') {
+					i++;
+				}
+			} else {
+				int start = i;
+				while (i < limit && buf.get(i) != delimiter && buf.get(i) != '\n' && buf.get(i) != '\r') {
+					i++;
+				}
+				int end = i;
+				while (end > start && isBlank(buf.get(end - 1))) {
+					end--;
+				}
+				addField(start, end, false, false);
+			}
+
+			if (i >= limit) {
+				return limit;
+			}
+
+			byte b = buf.get(i);
+			if (b == delimiter) {
+				i++;
+				continue;
+			}
+
+			return (b == '\r' && i + 1 < limit && buf.get(i + 1) == '\n') ? i + 2 : i + 1;
+		}
+	}
+
+	public int getFieldCount() {
+		return fieldCount;
+	}
+
+	public int getFieldStart(int field) {
+		return fieldStart[field];
+	}
+
+	public int getFieldEnd(int field) {
+		return fieldEnd[field];
+	}
+
+	public int getLineCount() {
+		return lineCount;
+	}
+
+	/**
+	 * Whether the last record is an empty or blank line.
+	 */
+	public boolean isBlankRecord() {
+		return fieldCount == 1 && !fieldQuoted[0] && fieldStart[0] == fieldEnd[0];
+	}
+
+	public String getField(ByteBuffer buf, int field) {
+		int start = fieldStart[field];
+		int length = fieldEnd[field] - start;
+		if (scratch.length < length) {
+			scratch = new byte[Math.max(length, scratch.length * 2)];
+		}
+
+		int n;
+		if (fieldEscaped[field]) {
+			n = 0;
+			for (int i = start; i < fieldEnd[field]; i++) {
+				byte b = buf.get(i);
+				scratch[n++] = b;
+				if (b == '"') {
+					i++; // "" -> "
+				}
+			}
+		} else {
+			buf.get(start, scratch, 0, length);
+			n = length;
+		}
+		return new String(scratch, 0, n, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * All fields of the last record.
+	 */
+	public String[] getFields(ByteBuffer buf) {
+		String[] fields = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			fields[i] = getField(buf, i);
+		}
+		return fields;
+	}
+
+	/**
+	 * Parses a single record held in a string (a header line, for instance).
+	 */
+	public String[] parseLine(String line) {
+		if (line == null || line.trim().isEmpty()) {
+			return new String[0];
+		}
+		ByteBuffer buf = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+		next(buf, 0, buf.limit(), true);
+		return getFields(buf);
+	}
+
+	private boolean isBlank(byte b) {
+		return b >= 0 && b <= ' ' && b != '\n' && b != '\r' && b != delimiter;
+	}
+
+	private void addField(int start, int end, boolean quoted, boolean escaped) {
+		if (fieldCount == fieldStart.length) {
+			int size = fieldCount * 2;
+			fieldStart = Arrays.copyOf(fieldStart, size);
+			fieldEnd = Arrays.copyOf(fieldEnd, size);
+			fieldQuoted = Arrays.copyOf(fieldQuoted, size);
+			fieldEscaped = Arrays.copyOf(fieldEscaped, size);
+		}
+		fieldStart[fieldCount] = start;
+		fieldEnd[fieldCount] = end;
+		fieldQuoted[fieldCount] = quoted;
+		fieldEscaped[fieldCount] = escaped;
+		fieldCount++;
+	}
+}
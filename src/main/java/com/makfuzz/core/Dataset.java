@@ -0,0 +1,322 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rows of a loaded file, prepared once for repeated searches. Each searched
+ * column is normalised (trimmed, upper-cased) and dictionary-encoded the first
+ * time it is used, and the phonetic codes of its distinct values are computed
+ * once per language.
+ */
+public class Dataset {
+
+	private final List<String[]> rows;
+
+	// 1-based line of each row in the source file, null when unknown
+	private final int[] lineNumbers;
+
+	// Rows a worker dictionary-encodes at once
+	private static final int ENCODE_CHUNK_SIZE = 1 << 16;
+
+	private final Map<Integer, Column> columns = new ConcurrentHashMap<>();
+
+	// Source file of the dataset and content of its snapshot, see DatasetSnapshot
+	volatile DatasetSnapshot.Source snapshotSource;
+	volatile String snapshotContent;
+
+	private Dataset(List<String[]> rows, int[] lineNumbers) {
+		this.rows = rows;
+		this.lineNumbers = lineNumbers;
+	}
+
+	public static Dataset of(Collection<String[]> rows) {
+		return new Dataset(rows instanceof List<String[]> list ? list : new ArrayList<>(rows), null);
+	}
+
+	public static Dataset of(List<String[]> rows, int[] lineNumbers) {
+		if (lineNumbers.length != rows.size()) {
+			throw new IllegalArgumentException("One line number per row expected");
+		}
+		return new Dataset(rows, lineNumbers);
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public boolean isEmpty() {
+		return rows.isEmpty();
+	}
+
+	public String[] getRow(int row) {
+		return rows.get(row);
+	}
+
+	/**
+	 * Line of the row in the source file, or its 1-based position when the
+	 * dataset was not loaded from a file.
+	 */
+	public int getLineNumber(int row) {
+		return lineNumbers != null ? lineNumbers[row] : row + 1;
+	}
+
+	public List<String[]> getRows() {
+		return rows;
+	}
+
+	public Column column(int columnIndex) {
+		return columns.computeIfAbsent(columnIndex, Column::new);
+	}
+
+	/**
+	 * Prepared columns, by index.
+	 */
+	List<Column> preparedColumns() {
+		List<Column> prepared = new ArrayList<>(columns.values());
+		prepared.sort(java.util.Comparator.comparingInt(Column::getIndex));
+		return prepared;
+	}
+
+	/**
+	 * Installs a column prepared beforehand (read from a snapshot); null codes
+	 * are computed when first needed.
+	 */
+	void restoreColumn(int columnIndex, String[] dictionary, int[] ids, String[] frenchCodes,
+			String[] genericCodes) {
+		if (dictionary.length == 0 || !dictionary[0].isEmpty() || ids.length != rows.size()) {
+			throw new IllegalArgumentException("Not a column of this dataset");
+		}
+		Column column = new Column(columnIndex, dictionary, ids);
+		column.frenchCodes = frenchCodes;
+		column.genericCodes = genericCodes;
+		columns.put(columnIndex, column);
+	}
+
+	/**
+	 * A column, dictionary-encoded: each distinct normalised value is stored
+	 * once, and rows hold its id. Id 0 is the empty value (missing or blank
+	 * cell); the other ids follow the order values first appear in.
+	 * Phonetic codes are computed per distinct value too.
+	 */
+	public class Column {
+
+		private final int index;
+
+		private final String[] dictionary;
+		private final int[] ids;
+
+		// Per id
+		private volatile String[] frenchCodes;
+		private volatile String[] genericCodes;
+		private volatile String[][] frenchAlternatives;
+		private volatile String[][] genericAlternatives;
+
+		// Codes being computed, guarded by this
+		private PhoneticEncoding frenchEncoding;
+		private PhoneticEncoding genericEncoding;
+
+		private volatile BlockingIndex blockingIndex;
+
+		// Per id, NaN when the value is not a number
+		private volatile double[] numbers;
+
+		private Column(int index) {
+			this.index = index;
+			this.ids = new int[rows.size()];
+
+			// Each chunk numbers its own distinct values, then chunk ids are mapped to
+			// the column's ones, in row order
+			int nbChunks = (ids.length + ENCODE_CHUNK_SIZE - 1) / ENCODE_CHUNK_SIZE;
+			List<List<String>> chunkValues = ScanPool.map(0, nbChunks, c -> {
+				Map<String, Integer> chunkIds = new HashMap<>();
+				List<String> distinct = new ArrayList<>();
+				int to = Math.min(ids.length, (c + 1) * ENCODE_CHUNK_SIZE);
+				for (int row = c * ENCODE_CHUNK_SIZE; row < to; row++) {
+					String[] t = rows.get(row);
+					String v = (index < t.length && t[index] != null) ? t[index].trim().toUpperCase() : "";
+					Integer id = chunkIds.putIfAbsent(v, distinct.size());
+					if (id == null) {
+						id = distinct.size();
+						distinct.add(v);
+					}
+					ids[row] = id;
+				}
+				return distinct;
+			});
+
+			Map<String, Integer> columnIds = new HashMap<>();
+			List<String> distinct = new ArrayList<>();
+			columnIds.put("", 0);
+			distinct.add("");
+			int[][] chunkToColumn = new int[nbChunks][];
+			for (int c = 0; c < nbChunks; c++) {
+				List<String> values = chunkValues.get(c);
+				chunkToColumn[c] = new int[values.size()];
+				for (int k = 0; k < values.size(); k++) {
+					Integer id = columnIds.putIfAbsent(values.get(k), distinct.size());
+					if (id == null) {
+						id = distinct.size();
+						distinct.add(values.get(k));
+					}
+					chunkToColumn[c][k] = id;
+				}
+			}
+			ScanPool.forEach(0, ids.length, row -> ids[row] = chunkToColumn[row / ENCODE_CHUNK_SIZE][ids[row]]);
+			this.dictionary = distinct.toArray(new String[0]);
+		}
+
+		private Column(int index, String[] dictionary, int[] ids) {
+			this.index = index;
+			this.dictionary = dictionary;
+			this.ids = ids;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		/**
+		 * Distinct normalised values, by id.
+		 */
+		public String[] getDictionary() {
+			return dictionary;
+		}
+
+		/**
+		 * Value id of each row.
+		 */
+		public int[] getIds() {
+			return ids;
+		}
+
+		/**
+		 * Normalised value of {@code row}, "" when the cell is missing or blank.
+		 */
+		public String getValue(int row) {
+			return dictionary[ids[row]];
+		}
+
+		/**
+		 * Phonetic codes of the distinct values, by id.
+		 */
+		public String[] getPhoneticCodes(boolean isFrench) {
+			String[] codes = isFrench ? frenchCodes : genericCodes;
+			if (codes == null) {
+				PhoneticEncoding encoding = phoneticEncoding(isFrench);
+				if (encoding == null) {
+					return isFrench ? frenchCodes : genericCodes;
+				}
+				ScanPool.forEach(0, encoding.getChunkCount(), chunk -> encoding.encodeNext());
+				codes = encoding.await();
+				synchronized (this) {
+					if (isFrench) {
+						frenchCodes = codes;
+						frenchEncoding = null;
+					} else {
+						genericCodes = codes;
+						genericEncoding = null;
+					}
+				}
+			}
+			return codes;
+		}
+
+		/**
+		 * The computation of the phonetic codes, started by the first caller;
+		 * null once the codes are computed.
+		 */
+		synchronized PhoneticEncoding phoneticEncoding(boolean isFrench) {
+			if ((isFrench ? frenchCodes : genericCodes) != null) {
+				return null;
+			}
+			PhoneticEncoding encoding = isFrench ? frenchEncoding : genericEncoding;
+			if (encoding == null) {
+				encoding = new PhoneticEncoding(dictionary, isFrench);
+				if (isFrench) {
+					frenchEncoding = encoding;
+				} else {
+					genericEncoding = encoding;
+				}
+			}
+			return encoding;
+		}
+
+		/**
+		 * Phonetic codes of the distinct values, by id, each split into its
+		 * alternatives (see {@link PhoneticAlternatives}).
+		 */
+		String[][] getPhoneticAlternatives(boolean isFrench) {
+			String[][] alternatives = isFrench ? frenchAlternatives : genericAlternatives;
+			if (alternatives == null) {
+				String[] codes = getPhoneticCodes(isFrench);
+				synchronized (this) {
+					alternatives = isFrench ? frenchAlternatives : genericAlternatives;
+					if (alternatives == null) {
+						alternatives = split(codes);
+						if (isFrench) {
+							frenchAlternatives = alternatives;
+						} else {
+							genericAlternatives = alternatives;
+						}
+					}
+				}
+			}
+			return alternatives;
+		}
+
+		/**
+		 * Phonetic codes if already computed, else null.
+		 */
+		String[] getComputedCodes(boolean isFrench) {
+			return isFrench ? frenchCodes : genericCodes;
+		}
+
+		/**
+		 * Distinct values read as numbers, by id; NaN for the ones that are not.
+		 */
+		double[] getNumbers() {
+			double[] values = numbers;
+			if (values == null) {
+				values = new double[dictionary.length];
+				for (int id = 0; id < values.length; id++) {
+					try {
+						values[id] = dictionary[id].isEmpty() ? Double.NaN : Double.parseDouble(dictionary[id]);
+					} catch (NumberFormatException e) {
+						values[id] = Double.NaN;
+					}
+				}
+				numbers = values;
+			}
+			return values;
+		}
+
+		public BlockingIndex getBlockingIndex() {
+			BlockingIndex index = blockingIndex;
+			if (index == null) {
+				synchronized (this) {
+					index = blockingIndex;
+					if (index == null) {
+						index = BlockingIndex.build(dictionary, ids);
+						blockingIndex = index;
+					}
+				}
+			}
+			return index;
+		}
+
+		private String[][] split(String[] codes) {
+			// Values of a column share many alternatives: keep one instance of each
+			Map<String, String> interned = new HashMap<>();
+			String[][] alternatives = new String[codes.length][];
+			for (int id = 0; id < codes.length; id++) {
+				alternatives[id] = PhoneticAlternatives.split(codes[id], interned);
+			}
+			return alternatives;
+		}
+	}
+}
@@ -0,0 +1,567 @@
+package com.makfuzz.core;
+
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.zip.CRC32C;
+
+/**
+ * Binary snapshot of a loaded {@link Dataset}, written next to its CSV file
+ * ({@code <file>.mfz.<n>}) so that the file reopens without being parsed again.
+ * <p>
+ * It holds the rows, their line numbers and the prepared columns: the
+ * dictionary and value ids of each, and the phonetic codes of its values
+ * computed so far, per language. Reopening restores the columns as they were
+ * and warms the phonetic cache with them; the rows stay in the memory-mapped
+ * file and are only decoded when read.
+ * <p>
+ * A snapshot is used only while its CSV file has the same path, size,
+ * modification time and hash (CRC32C of its first and last
+ * {@value #HASH_PROBE} bytes, so that checking it stays cheap); otherwise the
+ * CSV file is parsed again.
+ * <p>
+ * Each save writes a new generation {@code n} instead of replacing the file: a
+ * dataset reopened from a snapshot keeps its rows mapped from that file, which
+ * Windows does not let be replaced or deleted. Older generations are deleted
+ * when they can be, and at the latest by the next {@link #load}.
+ */
+public final class DatasetSnapshot {
+
+	private static final String EXTENSION = ".mfz";
+
+	// "MAKFUZS1"
+	private static final long MAGIC = 0x4D414B46555A5331L;
+	private static final int VERSION = 2;
+
+	private static final int HASH_PROBE = 64 * 1024;
+
+	// Records start, offsets start, longest record, magic
+	private static final int TRAILER_SIZE = 8 + 8 + 4 + 8;
+
+	// Records are mapped by segments of this size (plus the longest record, so
+	// that each record lies in one segment)
+	private static final long SEGMENT_SIZE = 1L << 30;
+
+	private static final byte FRENCH = 1;
+	private static final byte GENERIC = 2;
+
+	/**
+	 * Identity of a source file.
+	 */
+	record Source(String path, long size, long lastModified, long hash) {
+
+		static Source of(File file) throws IOException {
+			try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+				long size = channel.size();
+				CRC32C crc = new CRC32C();
+				ByteBuffer head = ByteBuffer.allocate((int) Math.min(size, HASH_PROBE));
+				readFully(channel, head, 0);
+				crc.update(head.flip());
+				if (size > HASH_PROBE) {
+					ByteBuffer tail = ByteBuffer.allocate((int) Math.min(size - HASH_PROBE, HASH_PROBE));
+					readFully(channel, tail, size - tail.capacity());
+					crc.update(tail.flip());
+				}
+				return new Source(file.getAbsolutePath(), size, file.lastModified(), crc.getValue());
+			}
+		}
+	}
+
+	private DatasetSnapshot() {
+	}
+
+	/**
+	 * The snapshot generations of {@code file}, newest first.
+	 */
+	static List<File> generationsOf(File file) {
+		String prefix = prefixOf(file);
+		File[] files = file.getAbsoluteFile().getParentFile()
+				.listFiles((dir, name) -> name.startsWith(prefix) && generation(name, prefix) >= 0);
+		if (files == null) {
+			return List.of();
+		}
+		return Arrays.stream(files)
+				.sorted(Comparator.comparingLong((File f) -> generation(f.getName(), prefix)).reversed()).toList();
+	}
+
+	/**
+	 * The generation of a snapshot file name, or -1 when it is not one.
+	 */
+	private static long generation(String name, String prefix) {
+		String suffix = name.substring(prefix.length());
+		if (suffix.isEmpty() || suffix.length() > 18 || !suffix.chars().allMatch(ch -> ch >= '0' && ch <= '9')) {
+			return -1;
+		}
+		return Long.parseLong(suffix);
+	}
+
+	private static String prefixOf(File file) {
+		return file.getAbsoluteFile().getName() + EXTENSION + ".";
+	}
+
+	private static File nextGeneration(File file) {
+		List<File> generations = generationsOf(file);
+		long next = generations.isEmpty() ? 1 : generation(generations.get(0).getName(), prefixOf(file)) + 1;
+		return new File(file.getAbsoluteFile().getParentFile(), prefixOf(file) + next);
+	}
+
+	/**
+	 * Deletes the snapshot files of {@code file} but {@code kept}. A file still
+	 * mapped (on Windows) is left for a later attempt.
+	 */
+	private static void deleteGenerations(File file, File kept) {
+		for (File generation : generationsOf(file)) {
+			if (!generation.equals(kept)) {
+				try {
+					Files.deleteIfExists(generation.toPath());
+				} catch (IOException e) {
+					// Still in use: deleted by a later save or load
+				}
+			}
+		}
+	}
+
+	/**
+	 * Opens {@code file} from its snapshot when it is up to date, else parses
+	 * it with {@link CsvLoader#load}. The dataset remembers the file, for
+	 * {@link #save}.
+	 */
+	public static Dataset load(File file, CsvLoader.ProgressListener listener) throws IOException {
+		Source source = Source.of(file);
+		Dataset dataset = null;
+		File used = null;
+		for (File generation : generationsOf(file)) {
+			dataset = open(generation, source);
+			if (dataset != null) {
+				used = generation;
+				break;
+			}
+		}
+		deleteGenerations(file, used);
+		if (dataset == null) {
+			dataset = CsvLoader.load(file, listener);
+		} else if (listener != null) {
+			listener.progress(source.size(), source.size());
+		}
+		dataset.snapshotSource = source;
+		return dataset;
+	}
+
+	/**
+	 * Whether the snapshot of {@code dataset} holds all it prepared so far (or
+	 * the dataset was not loaded with {@link #load}).
+	 */
+	public static boolean isSaved(Dataset dataset) {
+		return dataset.snapshotSource == null || content(dataset.preparedColumns()).equals(dataset.snapshotContent);
+	}
+
+	/**
+	 * Writes the snapshot of {@code dataset}, unless it is saved already or its
+	 * file changed since it was loaded. The snapshot is written aside and then
+	 * moved to the next generation, so readers never see half of it.
+	 */
+	public static synchronized void save(Dataset dataset) throws IOException {
+		Source source = dataset.snapshotSource;
+		if (source == null) {
+			return;
+		}
+		List<Dataset.Column> columns = dataset.preparedColumns();
+		String content = content(columns);
+		if (content.equals(dataset.snapshotContent) || !source.equals(Source.of(new File(source.path())))) {
+			return;
+		}
+
+		File file = new File(source.path());
+		File sidecar = nextGeneration(file);
+		File temp = new File(sidecar.getPath() + ".tmp");
+		try {
+			try (Output out = new Output(new BufferedOutputStream(Files.newOutputStream(temp.toPath()), 1 << 16))) {
+				write(out, dataset, source, columns);
+			}
+			try {
+				Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp.toPath());
+		}
+		dataset.snapshotContent = content;
+		deleteGenerations(file, sidecar);
+	}
+
+	/**
+	 * Prepared columns and languages, e.g. {@code "0:FG;2:F"}.
+	 */
+	private static String content(List<Dataset.Column> columns) {
+		StringBuilder sb = new StringBuilder();
+		for (Dataset.Column column : columns) {
+			sb.append(column.getIndex()).append(':');
+			if (column.getComputedCodes(true) != null) {
+				sb.append('F');
+			}
+			if (column.getComputedCodes(false) != null) {
+				sb.append('G');
+			}
+			sb.append(';');
+		}
+		return sb.toString();
+	}
+
+	private static void write(Output out, Dataset dataset, Source source, List<Dataset.Column> columns)
+			throws IOException {
+		int nbRows = dataset.size();
+		out.writeLong(MAGIC);
+		out.writeInt(VERSION);
+		out.writeString(source.path());
+		out.writeLong(source.size());
+		out.writeLong(source.lastModified());
+		out.writeLong(source.hash());
+
+		out.writeInt(nbRows);
+		int[] lineNumbers = new int[nbRows];
+		for (int row = 0; row < nbRows; row++) {
+			lineNumbers[row] = dataset.getLineNumber(row);
+		}
+		out.writeInts(lineNumbers);
+
+		out.writeInt(columns.size());
+		for (Dataset.Column column : columns) {
+			String[] frenchCodes = column.getComputedCodes(true);
+			String[] genericCodes = column.getComputedCodes(false);
+			String[] dictionary = column.getDictionary();
+
+			out.writeInt(column.getIndex());
+			out.writeInt(dictionary.length);
+			for (String value : dictionary) {
+				out.writeString(value);
+			}
+			out.writeInts(column.getIds());
+			out.writeByte((frenchCodes != null ? FRENCH : 0) | (genericCodes != null ? GENERIC : 0));
+			for (String[] codes : new String[][] { frenchCodes, genericCodes }) {
+				if (codes != null) {
+					for (String code : codes) {
+						out.writeString(code);
+					}
+				}
+			}
+		}
+
+		long recordsStart = out.position();
+		long[] offsets = new long[nbRows];
+		int longest = 0;
+		for (int row = 0; row < nbRows; row++) {
+			offsets[row] = out.position() - recordsStart;
+			String[] fields = dataset.getRow(row);
+			out.writeInt(fields.length);
+			for (String field : fields) {
+				out.writeString(field);
+			}
+			longest = (int) Math.max(longest, out.position() - recordsStart - offsets[row]);
+		}
+
+		long offsetsStart = out.position();
+		for (long offset : offsets) {
+			out.writeLong(offset);
+		}
+
+		out.writeLong(recordsStart);
+		out.writeLong(offsetsStart);
+		out.writeInt(longest);
+		out.writeLong(MAGIC);
+	}
+
+	/**
+	 * The dataset of {@code sidecar}, or null when it is missing, unreadable or
+	 * not the snapshot of {@code source}.
+	 */
+	private static Dataset open(File sidecar, Source source) {
+		if (!sidecar.isFile()) {
+			return null;
+		}
+		try (FileChannel channel = FileChannel.open(sidecar.toPath(), StandardOpenOption.READ)) {
+			long fileSize = channel.size();
+			if (fileSize < TRAILER_SIZE) {
+				return null;
+			}
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+			readFully(channel, trailer, fileSize - TRAILER_SIZE);
+			trailer.flip();
+			long recordsStart = trailer.getLong();
+			long offsetsStart = trailer.getLong();
+			int longest = trailer.getInt();
+			if (trailer.getLong() != MAGIC) {
+				return null;
+			}
+
+			Input in = new Input(channel);
+			if (in.readLong() != MAGIC || in.readInt() != VERSION) {
+				return null;
+			}
+			Source saved = new Source(in.readString(), in.readLong(), in.readLong(), in.readLong());
+			if (!saved.equals(source)) {
+				return null;
+			}
+
+			int nbRows = in.readInt();
+			if (offsetsStart + 8L * nbRows + TRAILER_SIZE != fileSize || 8L * nbRows > Integer.MAX_VALUE) {
+				return null;
+			}
+			int[] lineNumbers = in.readInts(nbRows);
+			LongBuffer offsets = channel.map(FileChannel.MapMode.READ_ONLY, offsetsStart, 8L * nbRows)
+					.asLongBuffer();
+			MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((offsetsStart - recordsStart + SEGMENT_SIZE - 1)
+					/ SEGMENT_SIZE)];
+			for (int k = 0; k < segments.length; k++) {
+				long start = recordsStart + k * SEGMENT_SIZE;
+				segments[k] = channel.map(FileChannel.MapMode.READ_ONLY, start,
+						Math.min(offsetsStart - start, SEGMENT_SIZE + longest));
+			}
+			Dataset dataset = Dataset.of(new MappedRows(offsets, segments, nbRows), lineNumbers);
+
+			PhoneticCache cache = Fuzz.getPhoneticCache();
+			int nbColumns = in.readInt();
+			StringBuilder content = new StringBuilder();
+			for (int c = 0; c < nbColumns; c++) {
+				int index = in.readInt();
+				String[] dictionary = in.readStrings(in.readInt());
+				int[] ids = in.readInts(nbRows);
+				byte languages = in.readByte();
+				String[] frenchCodes = (languages & FRENCH) != 0 ? in.readStrings(dictionary.length) : null;
+				String[] genericCodes = (languages & GENERIC) != 0 ? in.readStrings(dictionary.length) : null;
+
+				dataset.restoreColumn(index, dictionary, ids, frenchCodes, genericCodes);
+				warm(cache, true, dictionary, frenchCodes);
+				warm(cache, false, dictionary, genericCodes);
+
+				content.append(index).append(':').append(frenchCodes != null ? "F" : "")
+						.append(genericCodes != null ? "G" : "").append(';');
+			}
+			dataset.snapshotContent = content.toString();
+			return dataset;
+		} catch (IOException | RuntimeException e) {
+			// Unusable snapshot: the file is parsed again, and the snapshot rewritten
+			return null;
+		}
+	}
+
+	private static void warm(PhoneticCache cache, boolean french, String[] values, String[] codes) {
+		if (codes == null) {
+			return;
+		}
+		for (int i = 0; i < values.length && i < cache.getMaxSize(); i++) {
+			if (!values[i].isEmpty()) {
+				cache.put(french, values[i], codes[i]);
+			}
+		}
+	}
+
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int n = channel.read(buffer, position);
+			if (n < 0) {
+				throw new EOFException();
+			}
+			position += n;
+		}
+	}
+
+	/**
+	 * Rows decoded from the mapped records when read. Each record is a field
+	 * count, then each field as its UTF-8 length (-1 for null) and bytes.
+	 */
+	private static final class MappedRows extends AbstractList<String[]> implements RandomAccess {
+		private final LongBuffer offsets;
+		private final MappedByteBuffer[] segments;
+		private final int size;
+
+		MappedRows(LongBuffer offsets, MappedByteBuffer[] segments, int size) {
+			this.offsets = offsets;
+			this.segments = segments;
+			this.size = size;
+		}
+
+		@Override
+		public String[] get(int row) {
+			long offset = offsets.get(row);
+			MappedByteBuffer segment = segments[(int) (offset / SEGMENT_SIZE)];
+			int pos = (int) (offset % SEGMENT_SIZE);
+			String[] fields = new String[segment.getInt(pos)];
+			pos += 4;
+			for (int f = 0; f < fields.length; f++) {
+				int length = segment.getInt(pos);
+				pos += 4;
+				if (length >= 0) {
+					byte[] bytes = new byte[length];
+					segment.get(pos, bytes);
+					pos += length;
+					fields[f] = new String(bytes, StandardCharsets.UTF_8);
+				}
+			}
+			return fields;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * Big-endian writer tracking its position.
+	 */
+	private static final class Output implements AutoCloseable {
+		private final OutputStream out;
+		private final ByteBuffer scratch = ByteBuffer.allocate(1 << 16);
+		private long position;
+
+		Output(OutputStream out) {
+			this.out = out;
+		}
+
+		long position() {
+			return position;
+		}
+
+		void writeByte(int value) throws IOException {
+			out.write(value);
+			position++;
+		}
+
+		void writeInt(int value) throws IOException {
+			scratch.clear();
+			writeScratch(scratch.putInt(value));
+		}
+
+		void writeLong(long value) throws IOException {
+			scratch.clear();
+			writeScratch(scratch.putLong(value));
+		}
+
+		void writeInts(int[] values) throws IOException {
+			for (int from = 0; from < values.length; from += scratch.capacity() / 4) {
+				int n = Math.min(values.length - from, scratch.capacity() / 4);
+				scratch.clear();
+				scratch.asIntBuffer().put(values, from, n);
+				scratch.position(n * 4);
+				writeScratch(scratch);
+			}
+		}
+
+		void writeString(String value) throws IOException {
+			if (value == null) {
+				writeInt(-1);
+				return;
+			}
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+			writeInt(bytes.length);
+			out.write(bytes);
+			position += bytes.length;
+		}
+
+		private void writeScratch(ByteBuffer buffer) throws IOException {
+			out.write(buffer.array(), 0, buffer.position());
+			position += buffer.position();
+		}
+
+		@Override
+		public void close() throws IOException {
+			out.close();
+		}
+	}
+
+	/**
+	 * Buffered big-endian reader from the start of a channel.
+	 */
+	private static final class Input {
+		private final FileChannel channel;
+		private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+		private long position;
+
+		Input(FileChannel channel) {
+			this.channel = channel;
+			buffer.limit(0);
+		}
+
+		private void require(int n) throws IOException {
+			if (buffer.remaining() >= n) {
+				return;
+			}
+			buffer.compact();
+			while (buffer.position() < n) {
+				int read = channel.read(buffer, position);
+				if (read < 0) {
+					throw new EOFException();
+				}
+				position += read;
+			}
+			buffer.flip();
+		}
+
+		byte readByte() throws IOException {
+			require(1);
+			return buffer.get();
+		}
+
+		int readInt() throws IOException {
+			require(4);
+			return buffer.getInt();
+		}
+
+		long readLong() throws IOException {
+			require(8);
+			return buffer.getLong();
+		}
+
+		int[] readInts(int count) throws IOException {
+			int[] values = new int[count];
+			for (int from = 0; from < count; from += buffer.capacity() / 4) {
+				int n = Math.min(count - from, buffer.capacity() / 4);
+				require(n * 4);
+				buffer.asIntBuffer().get(values, from, n);
+				buffer.position(buffer.position() + n * 4);
+			}
+			return values;
+		}
+
+		String readString() throws IOException {
+			int length = readInt();
+			if (length < 0) {
+				return null;
+			}
+			byte[] bytes = new byte[length];
+			for (int off = 0; off < length;) {
+				require(1);
+				int n = Math.min(buffer.remaining(), length - off);
+				buffer.get(bytes, off, n);
+				off += n;
+			}
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		String[] readStrings(int count) throws IOException {
+			String[] values = new String[count];
+			for (int i = 0; i < count; i++) {
+				values[i] = readString();
+			}
+			return values;
+		}
+	}
+}
@@ -0,0 +1,31 @@
+package com.makfuzz.core;
+
+import lombok.Data;
+
+/**
+ * Clusters found by {@link Deduplicator}: rows sharing a cluster id are
+ * duplicates of each other (directly or through a chain of matching pairs).
+ */
+@Data
+public class DedupResult {
+	// Cluster of each row; clusters are numbered in order of their first row
+	private final int[] clusterIds;
+	private final int[] clusterSizes;
+	private final long comparisons;
+	private final long matchedPairs;
+
+	public int getClusterCount() {
+		return clusterSizes.length;
+	}
+
+	public int getClusterSize(int row) {
+		return clusterSizes[clusterIds[row]];
+	}
+
+	/**
+	 * Rows that duplicate an earlier row of their cluster.
+	 */
+	public int getDuplicateCount() {
+		return clusterIds.length - clusterSizes.length;
+	}
+}
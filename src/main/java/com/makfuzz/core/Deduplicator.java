@@ -0,0 +1,225 @@
+package com.makfuzz.core;
+
+import java.util.Arrays;
+import java.util.List;
+
+import com.makfuzz.core.Criteria.MatchingType;
+
+/**
+ * Self-join deduplication of a {@link Dataset}, without comparing every pair
+ * of rows.
+ * <p>
+ * Candidate pairs come from sorted-neighbourhood passes: rows are sorted on a
+ * blocking key and each row is compared with the rows following it within a
+ * window. There are three passes per rule, keyed on phonetic codes, on
+ * spellings and on reversed spellings, each starting with a different rule's
+ * column, so a typo in one column (or at the start of a value) does not hide
+ * a pair. Pairs are scored in parallel with the same
+ * rules as a search, and matching pairs are merged into clusters with
+ * union-find (duplicates are transitive).
+ */
+public class Deduplicator {
+
+	public static final int DEFAULT_WINDOW = 10;
+
+	// Separates the columns of a blocking key
+	private static final char KEY_SEP = '\u0001';
+
+	// Sort keys: phonetic codes, spellings, reversed spellings (typos near the start)
+	private static final int PHONETIC_KEY = 0;
+	private static final int SPELLING_KEY = 1;
+	private static final int REVERSED_KEY = 2;
+	private static final int KEY_KINDS = 3;
+
+	private Deduplicator() {
+	}
+
+	/**
+	 * @param columns   column compared by each rule: rule i compares column i of
+	 *                  both rows
+	 * @param rules     SIMILARITY or EXACT criteria; their value is not used
+	 * @param threshold minimum product of rule scores for two rows to be
+	 *                  duplicates
+	 * @param window    rows each row is compared with in a pass (itself included)
+	 */
+	public static DedupResult deduplicate(Dataset dataset, List<Integer> columns, List<Criteria> rules,
+			double threshold, String lang, int window) {
+		if (rules == null || rules.isEmpty() || rules.size() != columns.size()) {
+			throw new IllegalArgumentException("One column is needed per rule");
+		}
+		for (Criteria c : rules) {
+			if (c.getMatchingType() == MatchingType.REGEX) {
+				throw new IllegalArgumentException("REGEX rules cannot compare two rows");
+			}
+		}
+		if (window < 2) {
+			throw new IllegalArgumentException("window must be at least 2");
+		}
+
+		boolean isFrench = "fr".equalsIgnoreCase(lang);
+		int n = dataset.size();
+		int nbRules = rules.size();
+
+		// Per rule: value ids of the rows, distinct values and their phonetic codes
+		// (whole, for sort keys, and as alternatives, for scoring)
+		int[][] ids = new int[nbRules][];
+		String[][] values = new String[nbRules][];
+		String[][] codes = new String[nbRules][];
+		String[][][] alternatives = new String[nbRules][][];
+		for (int i = 0; i < nbRules; i++) {
+			Dataset.Column column = dataset.column(columns.get(i));
+			ids[i] = column.getIds();
+			values[i] = column.getDictionary();
+			if (rules.get(i).getMatchingType() == MatchingType.SIMILARITY) {
+				codes[i] = column.getPhoneticCodes(isFrench);
+				alternatives[i] = column.getPhoneticAlternatives(isFrench);
+			}
+		}
+
+		UnionFind clusters = new UnionFind(n);
+		long comparisons = 0;
+		long matchedPairs = 0;
+
+		for (int pass = 0; pass < KEY_KINDS * nbRules; pass++) {
+			int kind = pass % KEY_KINDS;
+			int first = pass / KEY_KINDS;
+			if (kind != SPELLING_KEY && codes[first] == null) {
+				continue; // EXACT rule: only equal values can match, the spelling pass finds them
+			}
+
+			int[] order = sortedRows(ids, values, codes, first, kind);
+
+			// Pairs already in the same cluster (from an earlier pass) are not scored
+			PairCollector pairs = ScanPool.collect(0, order.length, PairCollector::new,
+					(acc, p) -> {
+						int last = Math.min(p + window, order.length);
+						for (int q = p + 1; q < last; q++) {
+							int a = order[p];
+							int b = order[q];
+							if (clusters.connected(a, b)) {
+								continue;
+							}
+							acc.comparisons++;
+							if (isMatch(a, b, rules, ids, values, alternatives, threshold)) {
+								acc.add(a, b);
+							}
+						}
+					}, PairCollector::merge);
+
+			comparisons += pairs.comparisons;
+			for (int i = 0; i < pairs.size; i++) {
+				clusters.union((int) (pairs.pairs[i] >>> 32), (int) pairs.pairs[i]);
+			}
+			matchedPairs += pairs.size;
+		}
+
+		// Dense cluster ids, in order of first row
+		int[] clusterIds = new int[n];
+		int[] rootCluster = new int[n];
+		Arrays.fill(rootCluster, -1);
+		int[] sizes = new int[n];
+		int count = 0;
+		for (int row = 0; row < n; row++) {
+			int root = clusters.find(row);
+			if (rootCluster[root] < 0) {
+				rootCluster[root] = count++;
+			}
+			clusterIds[row] = rootCluster[root];
+			sizes[clusterIds[row]]++;
+		}
+
+		return new DedupResult(clusterIds, Arrays.copyOf(sizes, count), comparisons, matchedPairs);
+	}
+
+	/**
+	 * Rows with a value in column {@code first}, sorted on the rule columns
+	 * starting with that one.
+	 */
+	private static int[] sortedRows(int[][] ids, String[][] values, String[][] codes, int first, int kind) {
+		int nbRules = values.length;
+		int n = ids[first].length;
+
+		RowKey[] keys = ScanPool.map(0, n, row -> {
+			if (ids[first][row] == 0) {
+				return null;
+			}
+			StringBuilder sb = new StringBuilder();
+			for (int k = 0; k < nbRules; k++) {
+				int i = (first + k) % nbRules;
+				int id = ids[i][row];
+				if (kind == PHONETIC_KEY && codes[i] != null) {
+					sb.append(codes[i][id]);
+				} else if (kind == REVERSED_KEY) {
+					sb.append(new StringBuilder(values[i][id]).reverse());
+				} else {
+					sb.append(values[i][id]);
+				}
+				sb.append(KEY_SEP);
+			}
+			return new RowKey(sb.toString(), row);
+		}).stream().filter(java.util.Objects::nonNull).toArray(RowKey[]::new);
+		ScanPool.call(() -> {
+			Arrays.parallelSort(keys);
+			return keys;
+		});
+
+		int[] order = new int[keys.length];
+		for (int i = 0; i < keys.length; i++) {
+			order[i] = keys[i].row;
+		}
+		return order;
+	}
+
+	private static boolean isMatch(int a, int b, List<Criteria> rules, int[][] ids, String[][] values,
+			String[][][] alternatives, double threshold) {
+		double product = 1.0;
+		for (int i = 0; i < rules.size(); i++) {
+			int ia = ids[i][a];
+			int ib = ids[i][b];
+			if (ia == 0 || ib == 0) {
+				return false; // empty cell
+			}
+
+			product *= alternatives[i] == null ? Fuzz.pairScore(rules.get(i), values[i][ia], null, values[i][ib], null)
+					: Fuzz.pairScore(rules.get(i), values[i][ia], alternatives[i][ia], values[i][ib],
+							alternatives[i][ib]);
+
+			// Rule scores are at most 1: the product can only go down
+			if (product <= 0 || product < threshold) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private record RowKey(String key, int row) implements Comparable<RowKey> {
+		@Override
+		public int compareTo(RowKey o) {
+			int c = key.compareTo(o.key);
+			return c != 0 ? c : Integer.compare(row, o.row);
+		}
+	}
+
+	private static class PairCollector {
+		private long[] pairs = new long[16];
+		private int size;
+		private long comparisons;
+
+		void add(int a, int b) {
+			if (size == pairs.length) {
+				pairs = Arrays.copyOf(pairs, size * 2);
+			}
+			pairs[size++] = ((long) a << 32) | (b & 0xffffffffL);
+		}
+
+		void merge(PairCollector other) {
+			for (int i = 0; i < other.size; i++) {
+				if (size == pairs.length) {
+					pairs = Arrays.copyOf(pairs, size * 2);
+				}
+				pairs[size++] = other.pairs[i];
+			}
+			comparisons += other.comparisons;
+		}
+	}
+}
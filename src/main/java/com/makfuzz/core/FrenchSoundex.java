@@ -1,129 +1,329 @@
 package com.makfuzz.core;
 
+import java.util.Locale;
+
 /**
  * French Phonetic Encoder based on French phonetic rules Handles
  * French-specific pronunciation patterns, silent letters, and accents
+ * <p>
+ * The rules are applied as in-place rewrites of a per-thread char buffer, in
+ * the same order as the original chain of regex replacements, and give the
+ * exact same codes. The only allocation is the returned string.
  */
 public class FrenchSoundex {
 
+	private static final ThreadLocal<char[]> BUFFER = ThreadLocal.withInitial(() -> new char[64]);
+
 	public String encode(String input) {
 		if (input == null || input.isEmpty()) {
 			return "";
 		}
 
 		// Step 1: Normalize and uppercase
-		String word = input.trim().toUpperCase();
+		char[] buf = BUFFER.get();
+		if (buf.length < input.length()) {
+			buf = new char[Math.max(input.length(), buf.length * 2)];
+			BUFFER.set(buf);
+		}
+		int len = upperTrim(input, buf);
+		if (len < 0) {
+			// Rare characters whose upper case is locale- or length-dependent
+			String word = input.trim().toUpperCase();
+			if (buf.length < word.length()) {
+				buf = new char[word.length()];
+				BUFFER.set(buf);
+			}
+			word.getChars(0, word.length(), buf, 0);
+			len = word.length();
+		}
 
 		// Step 2: Remove accents and normalize French characters
-		word = removeAccents(word);
+		removeAccents(buf, len);
 
 		// Step 3: Apply French phonetic rules
-		word = applyFrenchRules(word);
+		len = applyFrenchRules(buf, len);
 
 		// Step 4: Remove consecutive duplicates
-		word = removeConsecutiveDuplicates(word);
+		len = removeConsecutiveDuplicates(buf, len);
 
 		// Step 5: Keep only letters
-		word = word.replaceAll("[^A-Z]", "");
+		len = keepLetters(buf, len);
 
-		return word;
+		return new String(buf, 0, len);
 	}
 
-	private String removeAccents(String text) {
-		return text.replaceAll("[ÀÁÂÃÄÅ]", "A").replaceAll("[ÈÉÊË]", "E").replaceAll("[ÌÍÎÏ]", "I")
-				.replaceAll("[ÒÓÔÕÖØ]", "O").replaceAll("[ÙÚÛÜ]", "U").replaceAll("Ç", "S").replaceAll("Ñ", "N")
-				.replaceAll("Æ", "E").replaceAll("Œ", "E");
+	/**
+	 * Trims and upper-cases {@code input} into {@code buf}, like
+	 * {@code input.trim().toUpperCase()}. Returns -1 when a character needs the
+	 * full {@link String#toUpperCase()} treatment.
+	 */
+	private int upperTrim(String input, char[] buf) {
+		int start = 0;
+		int end = input.length();
+		while (start < end && input.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && input.charAt(end - 1) <= ' ') {
+			end--;
+		}
+
+		boolean dottedI = false;
+		int len = 0;
+		for (int i = start; i < end; i++) {
+			char ch = input.charAt(i);
+			// ß and ŉ expand to two letters; past Latin Extended-A, leave it to String
+			if (ch > 'ſ' || ch == 'ß' || ch == 'ŉ') {
+				return -1;
+			}
+			dottedI |= ch == 'i';
+			buf[len++] = Character.toUpperCase(ch);
+		}
+
+		if (dottedI) {
+			String lang = Locale.getDefault().getLanguage();
+			if ("tr".equals(lang) || "az".equals(lang)) {
+				return -1;
+			}
+		}
+		return len;
 	}
 
-	private String applyFrenchRules(String word) {
+	private void removeAccents(char[] buf, int len) {
+		for (int i = 0; i < len; i++) {
+			switch (buf[i]) {
+			case 'À', 'Á', 'Â', 'Ã', 'Ä', 'Å' -> buf[i] = 'A';
+			case 'È', 'É', 'Ê', 'Ë' -> buf[i] = 'E';
+			case 'Ì', 'Í', 'Î', 'Ï' -> buf[i] = 'I';
+			case 'Ò', 'Ó', 'Ô', 'Õ', 'Ö', 'Ø' -> buf[i] = 'O';
+			case 'Ù', 'Ú', 'Û', 'Ü' -> buf[i] = 'U';
+			case 'Ç' -> buf[i] = 'S';
+			case 'Ñ' -> buf[i] = 'N';
+			case 'Æ', 'Œ' -> buf[i] = 'E';
+			default -> {
+			}
+			}
+		}
+	}
+
+	private int applyFrenchRules(char[] b, int len) {
 		// French phonetic transformations (order matters!)
+		// Each pass reads at r and writes at w <= r; matches never overlap, as with
+		// String.replaceAll.
+
+		// Common French patterns: PH -> F, GN -> NI, CH -> SH (the ^PH / ^GN rules
+		// are covered by these)
+		int w = 0;
+		for (int r = 0; r < len; r++) {
+			char ch = b[r];
+			char next = r + 1 < len ? b[r + 1] : 0;
+			if (ch == 'P' && next == 'H') {
+				b[w++] = 'F';
+				r++;
+			} else if (ch == 'G' && next == 'N') {
+				b[w++] = 'N';
+				b[w++] = 'I';
+				r++;
+			} else if (ch == 'C' && next == 'H') {
+				b[w++] = 'S';
+				b[w++] = 'H';
+				r++;
+			} else {
+				b[w++] = ch;
+			}
+		}
+		len = w;
+
+		// Handle QU, Q -> K
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			char ch = b[r];
+			if (ch == 'Q') {
+				b[w++] = 'K';
+				if (r + 1 < len && b[r + 1] == 'U') {
+					r++;
+				}
+			} else {
+				b[w++] = ch;
+			}
+		}
+		len = w;
+
+		// Handle C variations: CE, CI, CY -> S.; CA, CO, CU -> K.
+		for (int i = 0; i + 1 < len; i++) {
+			if (b[i] == 'C') {
+				char next = b[i + 1];
+				if (next == 'E' || next == 'I' || next == 'Y') {
+					b[i] = 'S';
+				} else if (next == 'A' || next == 'O' || next == 'U') {
+					b[i] = 'K';
+				}
+			}
+		}
+
+		// CC -> K
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			if (b[r] == 'C' && r + 1 < len && b[r + 1] == 'C') {
+				b[w++] = 'K';
+				r++;
+			} else {
+				b[w++] = b[r];
+			}
+		}
+		len = w;
+
+		// CK -> K, then C -> K
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			if (b[r] == 'C') {
+				if (r + 1 < len && b[r + 1] == 'K') {
+					continue;
+				}
+				b[w++] = 'K';
+			} else {
+				b[w++] = b[r];
+			}
+		}
+		len = w;
 
-		// Handle initial letters
-		word = word.replaceAll("^PH", "F");
-		word = word.replaceAll("^GN", "NI");
-
-		// Common French patterns
-		word = word.replaceAll("PH", "F");
-		word = word.replaceAll("GN", "NI");
-		word = word.replaceAll("CH", "SH");
-
-		// Handle QU
-		word = word.replaceAll("QU", "K");
-		word = word.replaceAll("Q", "K");
-
-		// Handle C variations
-		word = word.replaceAll("C([EIY])", "S$1"); // CE, CI, CY -> SE, SI, SY
-		word = word.replaceAll("C([AOU])", "K$1"); // CA, CO, CU -> KA, KO, KU
-		word = word.replaceAll("CC", "K");
-		word = word.replaceAll("CK", "K");
-		word = word.replaceAll("C", "K");
-
-		// Handle G variations
-		word = word.replaceAll("G([EIY])", "J$1"); // GE, GI, GY -> JE, JI, JY
-		word = word.replaceAll("GA", "KA");
-		word = word.replaceAll("GO", "KO");
-		word = word.replaceAll("GU", "K");
-		word = word.replaceAll("G", "K");
+		// Handle G variations: GE, GI, GY -> J.; GA, GO -> K.; GU -> K; G -> K
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			char ch = b[r];
+			if (ch == 'G') {
+				char next = r + 1 < len ? b[r + 1] : 0;
+				if (next == 'E' || next == 'I' || next == 'Y') {
+					b[w++] = 'J';
+				} else {
+					b[w++] = 'K';
+					if (next == 'U') {
+						r++;
+					}
+				}
+			} else {
+				b[w++] = ch;
+			}
+		}
+		len = w;
 
 		// Handle French EAU, EAUX -> O
-		word = word.replaceAll("EAUX?", "O");
-		word = word.replaceAll("EAU", "O");
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			if (b[r] == 'E' && r + 2 < len && b[r + 1] == 'A' && b[r + 2] == 'U') {
+				b[w++] = 'O';
+				r += 2;
+				if (r + 1 < len && b[r + 1] == 'X') {
+					r++;
+				}
+			} else {
+				b[w++] = b[r];
+			}
+		}
+		len = w;
 
-		// Handle AI, EI -> E
-		word = word.replaceAll("AI", "E");
-		word = word.replaceAll("EI", "E");
-		word = word.replaceAll("AY", "E");
+		// Handle AI, EI, AY -> E (one pass each: AI -> E can create EI)
+		len = replacePair(b, len, 'A', 'I', 'E');
+		len = replacePair(b, len, 'E', 'I', 'E');
+		len = replacePair(b, len, 'A', 'Y', 'E');
 
 		// Handle OU -> U
-		word = word.replaceAll("OU", "U");
-
-		// Handle silent H
-		word = word.replaceAll("H", "");
-
-		// Handle W -> V
-		word = word.replaceAll("W", "V");
-
-		// Handle Y -> I
-		word = word.replaceAll("Y", "I");
-
-		// Handle double consonants
-		word = word.replaceAll("LL", "L");
-		word = word.replaceAll("MM", "M");
-		word = word.replaceAll("NN", "N");
-		word = word.replaceAll("PP", "P");
-		word = word.replaceAll("RR", "R");
-		word = word.replaceAll("SS", "S");
-		word = word.replaceAll("TT", "T");
-
-		// Remove silent final letters (common in French)
-		word = word.replaceAll("E$", ""); // Silent final E
-		word = word.replaceAll("S$", ""); // Silent final S
-		word = word.replaceAll("T$", ""); // Silent final T
-		word = word.replaceAll("X$", ""); // Silent final X
-		word = word.replaceAll("Z$", ""); // Silent final Z
-		word = word.replaceAll("D$", ""); // Silent final D
-		word = word.replaceAll("P$", ""); // Silent final P
-
-		return word;
+		len = replacePair(b, len, 'O', 'U', 'U');
+
+		// Handle silent H, W -> V, Y -> I
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			char ch = b[r];
+			if (ch == 'H') {
+				continue;
+			}
+			b[w++] = ch == 'W' ? 'V' : ch == 'Y' ? 'I' : ch;
+		}
+		len = w;
+
+		// Handle double consonants: LL, MM, NN, PP, RR, SS, TT
+		w = 0;
+		for (int r = 0; r < len; r++) {
+			char ch = b[r];
+			b[w++] = ch;
+			if (r + 1 < len && b[r + 1] == ch && (ch == 'L' || ch == 'M' || ch == 'N' || ch == 'P' || ch == 'R'
+					|| ch == 'S' || ch == 'T')) {
+				r++;
+			}
+		}
+		len = w;
+
+		// Remove silent final letters (common in French), one after the other
+		len = removeFinal(b, len, 'E');
+		len = removeFinal(b, len, 'S');
+		len = removeFinal(b, len, 'T');
+		len = removeFinal(b, len, 'X');
+		len = removeFinal(b, len, 'Z');
+		len = removeFinal(b, len, 'D');
+		len = removeFinal(b, len, 'P');
+
+		return len;
 	}
 
-	private String removeConsecutiveDuplicates(String text) {
-		if (text.length() <= 1) {
-			return text;
+	private int replacePair(char[] b, int len, char first, char second, char replacement) {
+		int w = 0;
+		for (int r = 0; r < len; r++) {
+			if (b[r] == first && r + 1 < len && b[r + 1] == second) {
+				b[w++] = replacement;
+				r++;
+			} else {
+				b[w++] = b[r];
+			}
+		}
+		return w;
+	}
+
+	/**
+	 * Same as {@code replaceAll(letter + "$", "")}: regex {@code $} also matches
+	 * before a line terminator ending the input.
+	 */
+	private int removeFinal(char[] b, int len, char letter) {
+		int end = len;
+		if (end >= 2 && b[end - 2] == '\r' && b[end - 1] == '\n') {
+			end -= 2;
+		} else if (end >= 1 && isLineTerminator(b[end - 1])) {
+			end--;
+		}
+
+		if (end == 0 || b[end - 1] != letter) {
+			return len;
 		}
+		System.arraycopy(b, end, b, end - 1, len - end);
+		return len - 1;
+	}
+
+	private static boolean isLineTerminator(char ch) {
+		return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+	}
 
-		StringBuilder result = new StringBuilder();
-		char prev = text.charAt(0);
-		result.append(prev);
+	private int removeConsecutiveDuplicates(char[] b, int len) {
+		if (len <= 1) {
+			return len;
+		}
 
-		for (int i = 1; i < text.length(); i++) {
-			char current = text.charAt(i);
+		int w = 1;
+		char prev = b[0];
+		for (int r = 1; r < len; r++) {
+			char current = b[r];
 			if (current != prev) {
-				result.append(current);
+				b[w++] = current;
 				prev = current;
 			}
 		}
+		return w;
+	}
 
-		return result.toString();
+	private int keepLetters(char[] b, int len) {
+		int w = 0;
+		for (int r = 0; r < len; r++) {
+			if (b[r] >= 'A' && b[r] <= 'Z') {
+				b[w++] = b[r];
+			}
+		}
+		return w;
 	}
-}
\ No newline at end of file
+}
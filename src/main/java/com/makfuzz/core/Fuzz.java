@@ -1,192 +1,489 @@
 package com.makfuzz.core;
 
+import java.util.BitSet;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
 
 import org.apache.commons.codec.language.bm.NameType;
 import org.apache.commons.codec.language.bm.PhoneticEngine;
 import org.apache.commons.codec.language.bm.RuleType;
-import org.apache.commons.text.similarity.JaroWinklerSimilarity;
 
 import com.makfuzz.core.Criteria.MatchingType;
 
 public class Fuzz {
 
 	static final String SEP = "[,;]";
-	private static final JaroWinklerSimilarity SPELLING_STRATEGY = new JaroWinklerSimilarity();
+	// Relative rounding margin between a partial product and the line score
+	private static final double BOUND_SLACK = 1e-9;
+	// Rows scored between two cancellation checks / progress reports of rank
+	private static final int SCAN_CHUNK_SIZE = 1 << 16;
+	private static final SearchMonitor UNMONITORED = new SearchMonitor(0, null);
+	// A column's distinct values are scored once, instead of its cells, when they
+	// repeat at least this many times on average over the scanned rows
+	private static final int MIN_ROWS_PER_VALUE = 4;
+	// EXACT and REGEX criteria only restrict the scan to the rows of their
+	// values when these are at most this fraction (1/n) of the rows: listing
+	// more costs about as much as scanning them
+	private static final int MIN_SKIPPED_SHARE = 4;
 
 	// Engines
 	private static final FrenchSoundex FRENCH_ENGINE = new FrenchSoundex();
 	private static final PhoneticEngine DEFAULT_ENGINE = new PhoneticEngine(NameType.GENERIC, RuleType.APPROX, true);
 
 	// Cache to avoid recalculating expensive phonetic codes for repeating names
-	// This makes a HUGE difference in performance on large datasets
-	private static final java.util.Map<String, String> PHONETIC_CACHE = new java.util.concurrent.ConcurrentHashMap<>(
-			2000);
-	private static String currentCacheLang = "";
+	// This makes a HUGE difference in performance on large datasets. Bounded, and
+	// keyed by language so switching between fr and en does not flush it. Sizes
+	// under the minimum (including 0) are raised to it.
+	private static final PhoneticCache PHONETIC_CACHE = new PhoneticCache(
+			Math.max(PhoneticCache.MIN_SIZE, Integer.getInteger("makfuzz.phoneticCache.size", 500_000)));
 
 	public static SearchResult bestMatch(Collection<String[]> candidates, List<Criteria> criterias,
 			List<Integer> searchColumnIndexes, double threshold, int topN, String lang) {
+		return bestMatch(candidates, criterias, searchColumnIndexes, threshold, topN, lang, false);
+	}
+
+	/**
+	 * @param collectAllFound also build {@link SearchResult#getAllFoundResults()}
+	 *                        (every line above the threshold, sorted). Leave it
+	 *                        off for interactive searches: only the top N lines
+	 *                        are retained otherwise.
+	 */
+	public static SearchResult bestMatch(Collection<String[]> candidates, List<Criteria> criterias,
+			List<Integer> searchColumnIndexes, double threshold, int topN, String lang, boolean collectAllFound) {
+		return bestMatch(Dataset.of(candidates), criterias, searchColumnIndexes, threshold, topN, lang,
+				collectAllFound);
+	}
+
+	public static SearchResult bestMatch(Dataset dataset, List<Criteria> criterias, List<Integer> searchColumnIndexes,
+			double threshold, int topN, String lang) {
+		return bestMatch(dataset, criterias, searchColumnIndexes, threshold, topN, lang, false);
+	}
+
+	/**
+	 * Searches a prepared {@link Dataset}: cells are read from its normalised
+	 * columns, so repeated searches on the same file skip all per-cell work.
+	 */
+	public static SearchResult bestMatch(Dataset dataset, List<Criteria> criterias, List<Integer> searchColumnIndexes,
+			double threshold, int topN, String lang, boolean collectAllFound) {
 
 		if (criterias == null || criterias.isEmpty()) {
 			return new SearchResult(java.util.Collections.emptyList(), 0, 0, 0, null, null, null, 0);
 		}
 
-		// Clear cache if language changed
-		if (!currentCacheLang.equalsIgnoreCase(lang)) {
-			PHONETIC_CACHE.clear();
-			currentCacheLang = lang;
-		}
-
-		boolean isFrench = "fr".equalsIgnoreCase(lang);
+		return bestMatch(dataset, CompiledQuery.compile(criterias, searchColumnIndexes, lang), threshold, topN,
+				collectAllFound);
+	}
 
-		int count = criterias.size();
+	/**
+	 * Runs a compiled query; keep the {@link CompiledQuery} to run the same
+	 * search again without compiling it.
+	 */
+	public static SearchResult bestMatch(Dataset dataset, CompiledQuery query, double threshold, int topN,
+			boolean collectAllFound) {
 
-		// Pre-optimized criteria data
-		String[] criteriaValues = new String[count];
-		String[] criteriaPhoneticCodes = new String[count];
+		if (query.getCriterias().isEmpty()) {
+			return new SearchResult(java.util.Collections.emptyList(), 0, 0, 0, null, null, null, 0);
+		}
+		BitSet filtered = query.getFilter() == null ? null : query.getFilter().matchingRows(dataset);
+		return scan(dataset, query, filtered, threshold, topN, collectAllFound);
+	}
 
-		for (int i = 0; i < count; i++) {
-			Criteria cI = criterias.get(i);
-			if (cI != null && !cI.isBlank()) {
-				criteriaValues[i] = cI.value;
-				// PRE-OPTIMIZATION: Calculate search criteria phonetic code ONCE
-				criteriaPhoneticCodes[i] = isFrench ? FRENCH_ENGINE.encode(cI.value) : DEFAULT_ENGINE.encode(cI.value);
+	/**
+	 * Runs many queries on the same dataset, such as a file of incoming names;
+	 * returns what {@link #bestMatch(Dataset, CompiledQuery, double, int, boolean)}
+	 * returns for each, in order.
+	 * <p>
+	 * Work the queries have in common is done once: equal queries (repeated
+	 * names) are run once and share their result, and the rows of a filter are
+	 * selected once for all the queries using it. The queries are then run
+	 * together on the {@link ScanPool}, each scanning its candidate rows with
+	 * its own bounded top N.
+	 */
+	public static List<SearchResult> bestMatches(Dataset dataset, List<CompiledQuery> queries, double threshold,
+			int topN, boolean collectAllFound) {
+		java.util.Map<CompiledQuery, Integer> distinct = new java.util.LinkedHashMap<>();
+		java.util.Map<RowFilter, BitSet> filtered = new java.util.HashMap<>();
+		for (CompiledQuery query : queries) {
+			distinct.putIfAbsent(query, distinct.size());
+			if (query.getFilter() != null && !query.getCriterias().isEmpty()) {
+				filtered.computeIfAbsent(query.getFilter(), f -> f.matchingRows(dataset));
 			}
 		}
 
-		// We need to collect all that pass criteria to calculate stats accurately
-		List<LineSimResult> allMatches = candidates.parallelStream().map(t -> {
+		List<CompiledQuery> toRun = new java.util.ArrayList<>(distinct.keySet());
+		List<SearchResult> distinctResults = ScanPool.map(0, toRun.size(), q -> {
+			CompiledQuery query = toRun.get(q);
+			if (query.getCriterias().isEmpty()) {
+				return new SearchResult(java.util.Collections.emptyList(), 0, 0, 0, null, null, null, 0);
+			}
+			// Blocking narrows the filter's rows: each query works on its own copy
+			BitSet rows = query.getFilter() == null ? null : (BitSet) filtered.get(query.getFilter()).clone();
+			return scan(dataset, query, rows, threshold, topN, collectAllFound);
+		});
+
+		List<SearchResult> results = new java.util.ArrayList<>(queries.size());
+		for (CompiledQuery query : queries) {
+			results.add(distinctResults.get(distinct.get(query)));
+		}
+		return results;
+	}
 
-			LineSimResult lsr = new LineSimResult();
-			lsr.setCandidate(t);
+	/**
+	 * Scores the rows of {@code filtered} (null for all the rows) the blocking
+	 * indexes cannot rule out against the query.
+	 */
+	private static SearchResult scan(Dataset dataset, CompiledQuery query, BitSet filtered, double threshold,
+			int topN, boolean collectAllFound) {
+		// Each worker keeps its own bounded heap and running stats; they are merged at
+		// the end instead of sorting every match. A worker stops scoring a line as
+		// soon as it cannot change its stats (see TopNCollector#getCutoff).
+		List<Criteria> criterias = query.getCriterias();
+		int[] candidateRows = blockCandidateRows(dataset, filtered, criterias, query.getPhoneticCodes(),
+				query.getSearchColumns(), query.isFrench());
+		int nbRows = candidateRows == null ? dataset.size() : candidateRows.length;
+		SearchColumns columns = SearchColumns.of(dataset, query, nbRows);
+		TopNCollector collector = ScanPool.collect(0, nbRows,
+				() -> new TopNCollector(dataset, criterias, threshold, topN, collectAllFound), (acc, i) -> {
+					int row = candidateRows == null ? i : candidateRows[i];
+					acc.accept(row, scoreLine(row, query, columns, acc.getCutoff(), acc.getLineScores()));
+				}, TopNCollector::merge);
+
+		return collector.toSearchResult(dataset.size());
+	}
 
-			lsr.initSimResults(criterias);
+	/**
+	 * Scores every line of the dataset, so that the results for any threshold
+	 * and top N can then be read from the ranking without scoring again.
+	 */
+	public static RankedResults rank(Dataset dataset, CompiledQuery query) {
+		return rank(dataset, query, 0);
+	}
 
-			boolean isExactOrRegexMatchingLineFalse = false;
+	/**
+	 * Scores the lines of the dataset a search with {@code threshold} needs, and
+	 * the ones it could not rule out early: the ranking then answers that
+	 * threshold, any higher one, and any top N (see
+	 * {@link RankedResults#covers(double)}).
+	 */
+	public static RankedResults rank(Dataset dataset, CompiledQuery query, double threshold) {
+		return rank(dataset, query, threshold, UNMONITORED);
+	}
 
-			for (int i = 0; i < lsr.getSimResults().length; i++) {
-				SimResult sr = lsr.getSimResults()[i];
-				Criteria c = sr.getCriteria();
+	/**
+	 * {@link #rank(Dataset, CompiledQuery, double)}, cancellable and reporting
+	 * its progress with partial results through {@code monitor}.
+	 *
+	 * @throws java.util.concurrent.CancellationException when the monitor is
+	 *                                                    cancelled
+	 */
+	public static RankedResults rank(Dataset dataset, CompiledQuery query, double threshold,
+			SearchMonitor monitor) {
+		if (query.getCriterias().isEmpty()) {
+			return RankedResults.empty(dataset, query);
+		}
 
-				boolean isExactOrRegexMatchingCriteria = c.getMatchingType() == MatchingType.EXACT
-						|| c.getMatchingType() == MatchingType.REGEX;
+		int[] candidateRows = blockCandidateRows(dataset, query);
+		int nbRows = candidateRows == null ? dataset.size() : candidateRows.length;
+		SearchColumns columns = SearchColumns.of(dataset, query, nbRows);
+
+		// Rows are scanned by chunks, in order, to check for cancellation and report
+		// progress between them; within a chunk, workers stop at once when cancelled
+		long start = System.nanoTime();
+		RankedResults.Collector ranked = new RankedResults.Collector(query.getCriterias().size(), threshold, 0);
+		for (int from = 0; from < nbRows; from += SCAN_CHUNK_SIZE) {
+			int to = Math.min(from + SCAN_CHUNK_SIZE, nbRows);
+
+			double cutoff = ranked.getCutoff();
+			RankedResults.Collector chunk = ScanPool.collect(from, to,
+					() -> new RankedResults.Collector(query.getCriterias().size(), threshold, cutoff), (acc, i) -> {
+						if (!monitor.isCancelled()) {
+							int row = candidateRows == null ? i : candidateRows[i];
+							acc.accept(row, scoreLine(row, query, columns, acc.getCutoff(), acc.getLineScores()));
+						}
+					}, RankedResults.Collector::merge);
 
-				String critValue = c.getValue();
-				String critPhonetic = criteriaPhoneticCodes[i];
+			if (monitor.isCancelled()) {
+				throw new java.util.concurrent.CancellationException();
+			}
+			ranked.merge(chunk);
 
-				int nbExactOrRegexMatching = 0;
+			if (to < nbRows && monitor.isReportDue(start)) {
+				monitor.report(new SearchProgress(to, nbRows, System.nanoTime() - start,
+						ranked.snapshot(dataset, query, monitor.getSnapshotSize())));
+			}
+		}
 
-				for (int idx : searchColumnIndexes) {
-					String cellValue = (idx < t.length && t[idx] != null) ? t[idx].trim().toUpperCase() : "";
-					if (cellValue.isEmpty()) {
-						continue;
-					}
+		return ranked.toRankedResults(dataset, query);
+	}
 
-					double spellingScore = 0.0;
-					double phoneticScore = 0.0;
+	/**
+	 * Scores the given rows again, in parallel, keeping their order.
+	 */
+	static List<LineSimResult> scoreRows(Dataset dataset, CompiledQuery query, int[] rows, int from, int to) {
+		SearchColumns columns = SearchColumns.of(dataset, query, 0);
+		return ScanPool.map(from, to, i -> {
+			LineScores line = new LineScores(query.getCriterias().size());
+			scoreLine(rows[i], query, columns, 0, line);
+			return line.toLineSimResult(dataset.getRow(rows[i]), rows[i], query.getCriterias());
+		});
+	}
 
-					if (c.getMatchingType() == Criteria.MatchingType.EXACT) {
-						boolean isMatching = cellValue.equalsIgnoreCase(critValue);
-						spellingScore = isMatching ? 1.0 : 0.0;
-						phoneticScore = 1.0;
+	/**
+	 * Rows to score, ascending: only the ones the query's filter keeps and that
+	 * can still reach every criterion's minimum scores. Returns null for all the
+	 * rows.
+	 */
+	private static int[] blockCandidateRows(Dataset dataset, CompiledQuery query) {
+		BitSet filtered = query.getFilter() == null ? null : query.getFilter().matchingRows(dataset);
+		return blockCandidateRows(dataset, filtered, query.getCriterias(), query.getPhoneticCodes(),
+				query.getSearchColumns(), query.isFrench());
+	}
 
-						if (isMatching) {
-							nbExactOrRegexMatching++;
-						}
+	/**
+	 * The searched columns: value ids, distinct values and their phonetic codes
+	 * (when needed). Columns whose values repeat enough over the scanned rows
+	 * also get the scores of their distinct values.
+	 */
+	private record SearchColumns(int[] indexes, int[][] ids, String[][] dictionaries, String[][][] phonetics,
+			ValueScores[] valueScores) {
+
+		static SearchColumns of(Dataset dataset, CompiledQuery query, int nbScannedRows) {
+			List<Integer> searchColumnIndexes = query.getSearchColumns();
+			int nbColumns = searchColumnIndexes.size();
+			int[] indexes = new int[nbColumns];
+			int[][] ids = new int[nbColumns][];
+			String[][] dictionaries = new String[nbColumns][];
+			String[][][] phonetics = new String[nbColumns][][];
+			ValueScores[] valueScores = new ValueScores[nbColumns];
+			for (int k = 0; k < nbColumns; k++) {
+				Dataset.Column column = dataset.column(searchColumnIndexes.get(k));
+				indexes[k] = column.getIndex();
+				ids[k] = column.getIds();
+				dictionaries[k] = column.getDictionary();
+				if (query.hasSimilarity()) {
+					phonetics[k] = column.getPhoneticAlternatives(query.isFrench());
+				}
+				if ((long) dictionaries[k].length * MIN_ROWS_PER_VALUE <= nbScannedRows) {
+					valueScores[k] = ValueScores.of(query, indexes[k], dictionaries[k], phonetics[k]);
+				}
+			}
+			return new SearchColumns(indexes, ids, dictionaries, phonetics, valueScores);
+		}
+	}
 
-					} else if (c.getMatchingType() == Criteria.MatchingType.REGEX) {
-						boolean isMatching = c.getPattern().matcher(cellValue).find();
-						spellingScore = isMatching ? 1.0 : 0.0;
-						phoneticScore = 1.0;
+	/**
+	 * Scores of the distinct values of a column against each criterion, computed
+	 * once by the criterion's scorer: lines then read the scores of their cells
+	 * instead of computing them.
+	 */
+	private static final class ValueScores {
+
+		// [criterion][id]: NaN when the value does not match (EXACT / REGEX), 0 when
+		// it does not reach the minimums of the criterion
+		private final double[][] scores;
+		private final double[][] spellingScores;
+		private final double[][] phoneticScores;
+
+		private ValueScores(int nbCriteria, int nbValues) {
+			scores = new double[nbCriteria][nbValues];
+			spellingScores = new double[nbCriteria][nbValues];
+			phoneticScores = new double[nbCriteria][nbValues];
+		}
 
-						if (isMatching) {
-							nbExactOrRegexMatching++;
-						}
+		static ValueScores of(CompiledQuery query, int columnIndex, String[] dictionary, String[][] phonetics) {
+			int nbCriteria = query.getCriterias().size();
+			CompiledQuery.Scorer[] scorers = query.getScorers();
+			ValueScores valueScores = new ValueScores(nbCriteria, dictionary.length);
+
+			// Id 0 is the empty value, never scored
+			ScanPool.collect(1, dictionary.length, () -> new LineScores(nbCriteria), (line, id) -> {
+				String[] phonetic = phonetics == null ? null : phonetics[id];
+				line.clear();
+				for (int i = 0; i < nbCriteria; i++) {
+					boolean matching = scorers[i].score(line, i, dictionary[id], phonetic, columnIndex);
+					if (line.columns[i] >= 0) {
+						valueScores.scores[i][id] = line.scores[i];
+						valueScores.spellingScores[i][id] = line.spellingScores[i];
+						valueScores.phoneticScores[i][id] = line.phoneticScores[i];
 					} else {
-						// SIMILARITY
-						spellingScore = SPELLING_STRATEGY.apply(cellValue, critValue);
+						valueScores.scores[i][id] = matching ? 0 : Double.NaN;
+					}
+				}
+			}, (left, right) -> {
+			});
+			return valueScores;
+		}
 
-						// Phonetic Score
-						String cellPhonetic = PHONETIC_CACHE.computeIfAbsent(cellValue,
-								k -> isFrench ? FRENCH_ENGINE.encode(k) : DEFAULT_ENGINE.encode(k));
+		/**
+		 * Scorer#score from the table: keeps the value in {@code line} when it
+		 * scores better, and returns whether it matches.
+		 */
+		boolean offer(LineScores line, int i, int id, int columnIndex, String value) {
+			double score = scores[i][id];
+			if (Double.isNaN(score)) {
+				return false;
+			}
+			if (Double.compare(score, line.scores[i]) > 0) {
+				line.scores[i] = score;
+				line.spellingScores[i] = spellingScores[i][id];
+				line.phoneticScores[i] = phoneticScores[i][id];
+				line.columns[i] = columnIndex;
+				line.values[i] = value;
+			}
+			return true;
+		}
+	}
 
-						if (cellPhonetic.equals(critPhonetic)) {
-							phoneticScore = 1.0;
-						} else {
-							phoneticScore = SPELLING_STRATEGY.apply(cellPhonetic, critPhonetic);
-						}
-					}
+	/**
+	 * Intersects, over all criteria, the rows the blocking indexes cannot rule
+	 * out, starting from {@code filtered} (null for all the rows). Returns null
+	 * when no row can be excluded.
+	 */
+	private static int[] blockCandidateRows(Dataset dataset, BitSet filtered, List<Criteria> criterias,
+			String[][] criteriaPhoneticCodes, List<Integer> searchColumnIndexes, boolean isFrench) {
+		BitSet candidates = filtered;
+
+		for (int i = 0; i < criterias.size(); i++) {
+			Criteria c = criterias.get(i);
+			if (c == null || c.isBlank()) {
+				continue;
+			}
 
-					if (!isExactOrRegexMatchingCriteria || spellingScore > 0) {
-						double score = calculateScore(c, spellingScore, phoneticScore);
+			// A REGEX criterion restricts the rows through the literals it requires
+			LiteralMatcher literals = null;
+			if (c.getMatchingType() == MatchingType.REGEX) {
+				literals = LiteralMatcher.forPattern(c.getPattern());
+				if (literals == null) {
+					continue;
+				}
+			}
 
-						if (Double.compare(score, sr.getScore()) > 0 && spellingScore >= c.getMinSpellingScore()
-								&& phoneticScore >= c.getMinPhoneticScore()) {
-							sr.setPhoneticScore(phoneticScore);
-							sr.setSpellingScore(spellingScore);
-							sr.setScore(score);
-							sr.setColumnIndex(idx);
-							sr.setValue(cellValue);
-						}
+			BitSet criteriaRows = new BitSet(dataset.size());
+			boolean restricted = true;
+			if (c.getMatchingType() == MatchingType.SIMILARITY) {
+				for (int idx : searchColumnIndexes) {
+					Dataset.Column column = dataset.column(idx);
+					if (!column.getBlockingIndex().addCandidateRows(c, criteriaPhoneticCodes[i],
+							column.getPhoneticAlternatives(isFrench), isFrench, criteriaRows)) {
+						restricted = false;
+						break;
 					}
 				}
-
-				if (lsr.getMaxSimResult() == null || lsr.getMaxSimResult().compareTo(sr) < 0) {
-					lsr.setMaxSimResult(sr);
+			} else {
+				// Rows of the matching values, when few enough to be worth listing
+				BlockingIndex[] indexes = new BlockingIndex[searchColumnIndexes.size()];
+				int[][] keys = new int[indexes.length][];
+				long nbRows = 0;
+				for (int k = 0; k < indexes.length; k++) {
+					indexes[k] = dataset.column(searchColumnIndexes.get(k)).getBlockingIndex();
+					keys[k] = literals == null ? indexes[k].exactKeys(c.getValue())
+							: indexes[k].literalKeys(literals);
+					nbRows += indexes[k].rowCount(keys[k]);
 				}
-
-				if (isExactOrRegexMatchingCriteria && nbExactOrRegexMatching == 0) {
-					isExactOrRegexMatchingLineFalse = true;
+				restricted = nbRows * MIN_SKIPPED_SHARE <= dataset.size();
+				for (int k = 0; restricted && k < indexes.length; k++) {
+					indexes[k].addRows(keys[k], criteriaRows);
 				}
 			}
 
-			if (isExactOrRegexMatchingLineFalse) {
-				return null;
+			if (restricted) {
+				if (candidates == null) {
+					candidates = criteriaRows;
+				} else {
+					candidates.and(criteriaRows);
+				}
 			}
+		}
 
-			return lsr;
-
-		}).filter(p -> p != null && p.getScore() > 0).toList();
-
-		List<LineSimResult> allFoundMatches = allMatches.stream().filter(p -> p.getScore() >= threshold)
-				.sorted(Comparator.reverseOrder()).toList();
-
-		int totalFound = allFoundMatches.size();
-
-		List<LineSimResult> filtered = allFoundMatches.stream().limit(topN).toList();
+		return candidates == null ? null : candidates.stream().toArray();
+	}
 
-		SearchResult sr = new SearchResult(filtered, totalFound);
-		sr.setAllFoundResults(allFoundMatches);
+	static String phoneticCode(String value, boolean isFrench) {
+		return PHONETIC_CACHE.get(isFrench, value, k -> isFrench ? FRENCH_ENGINE.encode(k) : DEFAULT_ENGINE.encode(k));
+	}
 
-		// Calculate metrics
-		double maxUnder = 0;
-		double minAbove = 1.0;
-		double maxAbove = 0;
+	/**
+	 * Shared phonetic code cache (size can be set with the
+	 * {@code makfuzz.phoneticCache.size} system property), exposed for its stats.
+	 */
+	public static PhoneticCache getPhoneticCache() {
+		return PHONETIC_CACHE;
+	}
 
-		for (LineSimResult lsr : allMatches) {
-			double score = lsr.getScore();
-			if (score < threshold) {
-				if (score > maxUnder) {
-					maxUnder = score;
-				}
-			} else {
-				if (score < minAbove) {
-					minAbove = score;
+	/**
+	 * Scores a line into {@code line} and returns its score, or 0 when it is
+	 * dropped (an EXACT / REGEX criterion matches no column) or cannot score
+	 * above {@code cutoff}. Criterion scores are at most 1, so the product of
+	 * the scores evaluated so far bounds the line score.
+	 *
+	 * @param cutoff a line scoring at most this value would not change the
+	 *               result (it is below the threshold and under the best score
+	 *               already seen below it)
+	 */
+	private static double scoreLine(int rowIndex, CompiledQuery query, SearchColumns columns, double cutoff,
+			LineScores line) {
+
+		line.clear();
+
+		CompiledQuery.Scorer[] scorers = query.getScorers();
+		int[] columnIndexes = columns.indexes();
+		int[][] columnIds = columns.ids();
+		String[][] dictionaries = columns.dictionaries();
+		String[][][] columnPhonetics = columns.phonetics();
+		ValueScores[] valueScores = columns.valueScores();
+		double bound = 1.0;
+
+		for (int i : query.getEvaluationOrder()) {
+			CompiledQuery.Scorer scorer = scorers[i];
+
+			boolean matching = false;
+			for (int k = 0; k < columnIndexes.length; k++) {
+				int id = columnIds[k][rowIndex];
+				if (id == 0) {
+					continue; // empty cell
 				}
-				if (score > maxAbove) {
-					maxAbove = score;
+				if (valueScores[k] != null) {
+					matching |= valueScores[k].offer(line, i, id, columnIndexes[k], dictionaries[k][id]);
+				} else {
+					String[] cellPhonetic = columnPhonetics[k] == null ? null : columnPhonetics[k][id];
+					matching |= scorer.score(line, i, dictionaries[k][id], cellPhonetic, columnIndexes[k]);
 				}
 			}
+
+			if (!matching && scorer.requiresMatch()) {
+				return 0;
+			}
+
+			// A zero product is exact; otherwise leave room for rounding, as the final
+			// product multiplies in criteria order
+			bound *= line.scores[i];
+			if (bound <= 0 || bound * (1 + BOUND_SLACK) < cutoff) {
+				return 0;
+			}
 		}
 
-		sr.setMaxUnderThreshold(maxUnder);
-		sr.setMinAboveThreshold(minAbove == 1.0 && filtered.isEmpty() ? 0 : minAbove);
-		sr.setMaxAboveThreshold(maxAbove);
-		sr.setTotalResults(candidates.size());
+		return line.total();
+	}
+
+	/**
+	 * Score of rule {@code c} between two normalised cells, with the checks of a
+	 * search: 0 when the minimum spelling or phonetic score is not reached.
+	 */
+	static double pairScore(Criteria c, String a, String[] aPhonetic, String b, String[] bPhonetic) {
+		if (c.getMatchingType() == MatchingType.EXACT) {
+			return a.equalsIgnoreCase(b) ? calculateScore(c, 1.0, 1.0) : 0.0;
+		}
 
-		return sr;
+		double spellingScore = JaroWinkler.similarity(a, b, JaroWinkler.charMask(b), c.getMinSpellingScore());
+		if (spellingScore < c.getMinSpellingScore()) {
+			return 0.0;
+		}
+		double phoneticScore = PhoneticAlternatives.similarity(aPhonetic, bPhonetic,
+				PhoneticAlternatives.masks(bPhonetic), c.getMinPhoneticScore());
+		if (phoneticScore < c.getMinPhoneticScore()) {
+			return 0.0;
+		}
+		return calculateScore(c, spellingScore, phoneticScore);
 	}
 
 	private static double calculateScore(Criteria cr, double spellingScore, double phoneticScore) {
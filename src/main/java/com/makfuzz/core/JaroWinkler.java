@@ -0,0 +1,170 @@
+package com.makfuzz.core;
+
+/**
+ * Jaro-Winkler similarity giving exactly the scores of commons-text
+ * {@code JaroWinklerSimilarity}, without allocating: match flags live in
+ * per-thread scratch arrays.
+ * <p>
+ * The bounded variant takes the minimum score the caller needs. When string
+ * lengths, the characters the strings have in common or the match count
+ * prove the score is below it, it returns early with a value below the
+ * minimum instead of the exact score.
+ */
+public final class JaroWinkler {
+
+	private static final double SCALING_FACTOR = 0.1;
+
+	// Slack for rounding between a bound and the exact score
+	private static final double BOUND_SLACK = 1e-9;
+
+	private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+	private JaroWinkler() {
+	}
+
+	/**
+	 * Characters of {@code s}, one bit per {@code char & 63}. Compute it once
+	 * per query for {@link #similarity(String, String, long, double)}.
+	 */
+	public static long charMask(String s) {
+		long mask = 0;
+		for (int i = 0; i < s.length(); i++) {
+			mask |= 1L << (s.charAt(i) & 63);
+		}
+		return mask;
+	}
+
+	public static double similarity(String left, String right) {
+		return similarity(left, right, 0L, 0.0);
+	}
+
+	/**
+	 * Exact score when it is at least {@code min}; otherwise some value below
+	 * {@code min}.
+	 *
+	 * @param rightMask {@link #charMask(String)} of {@code right}; only used
+	 *                  when {@code min > 0}
+	 */
+	public static double similarity(String left, String right, long rightMask, double min) {
+		if (left.equals(right)) {
+			return 1.0;
+		}
+
+		int leftLength = left.length();
+		int rightLength = right.length();
+
+		if (min > 0) {
+			// Every match pairs a character of left with an equal one of right
+			int common = 0;
+			for (int i = 0; i < leftLength; i++) {
+				common += (int) (rightMask >>> (left.charAt(i) & 63)) & 1;
+			}
+			double bound = upperBound(left, right, Math.min(common, Math.min(leftLength, rightLength)));
+			if (bound * (1 + BOUND_SLACK) < min) {
+				return bound;
+			}
+		}
+
+		String max;
+		String min2;
+		if (leftLength > rightLength) {
+			max = left;
+			min2 = right;
+		} else {
+			max = right;
+			min2 = left;
+		}
+		int maxLength = max.length();
+		int minLength = min2.length();
+		int range = Math.max(maxLength / 2 - 1, 0);
+
+		Scratch scratch = SCRATCH.get();
+		boolean[] minFlags = scratch.flags(0, minLength);
+		boolean[] maxFlags = scratch.flags(1, maxLength);
+
+		int matches = 0;
+		for (int mi = 0; mi < minLength; mi++) {
+			char c1 = min2.charAt(mi);
+			for (int xi = Math.max(mi - range, 0), xn = Math.min(mi + range + 1, maxLength); xi < xn; xi++) {
+				if (!maxFlags[xi] && c1 == max.charAt(xi)) {
+					minFlags[mi] = true;
+					maxFlags[xi] = true;
+					matches++;
+					break;
+				}
+			}
+		}
+
+		if (matches == 0) {
+			return 0.0;
+		}
+		if (min > 0) {
+			double bound = upperBound(left, right, matches);
+			if (bound * (1 + BOUND_SLACK) < min) {
+				return bound;
+			}
+		}
+
+		// Matched characters of both strings, in order, compared pairwise
+		int transpositions = 0;
+		for (int mi = 0, xi = 0; mi < minLength; mi++) {
+			if (minFlags[mi]) {
+				while (!maxFlags[xi]) {
+					xi++;
+				}
+				if (min2.charAt(mi) != max.charAt(xi)) {
+					transpositions++;
+				}
+				xi++;
+			}
+		}
+
+		int prefix = commonPrefix(left, right, minLength);
+
+		// Same operations, in the same order, as commons-text
+		double m = matches;
+		double j = (m / leftLength + m / rightLength + (m - (double) transpositions / 2) / m) / 3;
+		return j < 0.7 ? j : j + SCALING_FACTOR * prefix * (1.0 - j);
+	}
+
+	/**
+	 * Score with {@code matches} matches and no transposition.
+	 */
+	private static double upperBound(String left, String right, int matches) {
+		if (matches == 0) {
+			return 0.0;
+		}
+		double m = matches;
+		double j = (m / left.length() + m / right.length() + 1.0) / 3;
+		if (j < 0.7) {
+			return j;
+		}
+		return j + SCALING_FACTOR * commonPrefix(left, right, Math.min(left.length(), right.length())) * (1.0 - j);
+	}
+
+	private static int commonPrefix(String left, String right, int minLength) {
+		int prefix = 0;
+		for (int i = 0, n = Math.min(4, minLength); i < n && left.charAt(i) == right.charAt(i); i++) {
+			prefix++;
+		}
+		return prefix;
+	}
+
+	private static class Scratch {
+		private final boolean[][] flags = { new boolean[32], new boolean[32] };
+
+		/**
+		 * Cleared array of at least {@code length} flags.
+		 */
+		boolean[] flags(int which, int length) {
+			boolean[] f = flags[which];
+			if (f.length < length) {
+				f = new boolean[Math.max(length, f.length * 2)];
+				flags[which] = f;
+			} else {
+				java.util.Arrays.fill(f, 0, length, false);
+			}
+			return f;
+		}
+	}
+}
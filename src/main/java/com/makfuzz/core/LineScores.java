@@ -0,0 +1,88 @@
+package com.makfuzz.core;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-criterion scores of the line being scored, in primitive arrays reused
+ * from line to line by a worker: a {@link LineSimResult} is only built for the
+ * lines a search keeps.
+ */
+final class LineScores {
+
+	final double[] scores;
+	final double[] spellingScores;
+	final double[] phoneticScores;
+	// Column of the best cell of each criterion, -1 when none reached its minimums
+	final int[] columns;
+	final String[] values;
+
+	// REGEX criteria matchers, reset on each cell
+	private final Matcher[] matchers;
+
+	LineScores(int nbCriteria) {
+		scores = new double[nbCriteria];
+		spellingScores = new double[nbCriteria];
+		phoneticScores = new double[nbCriteria];
+		columns = new int[nbCriteria];
+		values = new String[nbCriteria];
+		matchers = new Matcher[nbCriteria];
+	}
+
+	/**
+	 * This worker's matcher of {@code pattern}, the pattern of criterion
+	 * {@code i}, reset on {@code cell}.
+	 */
+	Matcher matcher(int i, Pattern pattern, String cell) {
+		Matcher m = matchers[i];
+		if (m == null) {
+			m = pattern.matcher(cell);
+			matchers[i] = m;
+			return m;
+		}
+		return m.reset(cell);
+	}
+
+	void clear() {
+		Arrays.fill(scores, 0);
+		Arrays.fill(spellingScores, 0);
+		Arrays.fill(phoneticScores, 0);
+		Arrays.fill(columns, -1);
+		Arrays.fill(values, null);
+	}
+
+	/**
+	 * Line score: the product of the criterion scores, in criteria order (as
+	 * {@link LineSimResult#getScore()}).
+	 */
+	double total() {
+		double d = 1;
+		for (double score : scores) {
+			d *= score;
+		}
+		return d;
+	}
+
+	LineSimResult toLineSimResult(String[] candidate, int rowIndex, List<Criteria> criterias) {
+		LineSimResult lsr = new LineSimResult();
+		lsr.setCandidate(candidate);
+		lsr.setRowIndex(rowIndex);
+		lsr.initSimResults(criterias);
+
+		for (int i = 0; i < scores.length; i++) {
+			SimResult sr = lsr.getSimResults()[i];
+			sr.setScore(scores[i]);
+			sr.setSpellingScore(spellingScores[i]);
+			sr.setPhoneticScore(phoneticScores[i]);
+			sr.setColumnIndex(columns[i]);
+			sr.setValue(values[i]);
+
+			if (lsr.getMaxSimResult() == null || lsr.getMaxSimResult().compareTo(sr) < 0) {
+				lsr.setMaxSimResult(sr);
+			}
+		}
+		return lsr;
+	}
+}
@@ -9,6 +9,9 @@ public class LineSimResult implements Comparable<LineSimResult> {
 
 	private String[] candidate;
 
+	// Position of the candidate in the searched collection
+	private int rowIndex = -1;
+
 	private SimResult[] simResults;
 
 	private SimResult maxSimResult;
@@ -0,0 +1,342 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Aho-Corasick automaton finding whether a string contains any of a set of
+ * literals, built from the literals every match of a regular expression
+ * contains: values containing none of them cannot match, and are ruled out
+ * without running the regex.
+ * <p>
+ * Literal extraction is conservative: a pattern whose structure is not fully
+ * understood yields no literals, and then no pruning.
+ */
+final class LiteralMatcher {
+
+	private static final String META = "\\[](){}.*+?^$|";
+
+	private final boolean caseInsensitive;
+
+	// Alphabet: index of each literal character (folded), 0 for any other
+	private final int[] asciiIndex = new int[128];
+	private final Map<Character, Integer> otherIndex = new HashMap<>();
+
+	// next[state][index of character] and whether a literal ends at a state
+	private final int[][] next;
+	private final boolean[] accepting;
+
+	private LiteralMatcher(List<String> literals, boolean caseInsensitive) {
+		this.caseInsensitive = caseInsensitive;
+
+		int alphabet = 1;
+		for (String literal : literals) {
+			for (int i = 0; i < literal.length(); i++) {
+				char c = literal.charAt(i);
+				if (c < 128 ? asciiIndex[c] == 0 : !otherIndex.containsKey(c)) {
+					if (c < 128) {
+						asciiIndex[c] = alphabet++;
+					} else {
+						otherIndex.put(c, alphabet++);
+					}
+				}
+			}
+		}
+
+		// Trie of the literals
+		List<int[]> trie = new ArrayList<>();
+		List<Boolean> ends = new ArrayList<>();
+		trie.add(new int[alphabet]);
+		ends.add(false);
+		for (String literal : literals) {
+			int state = 0;
+			for (int i = 0; i < literal.length(); i++) {
+				int a = index(literal.charAt(i));
+				if (trie.get(state)[a] == 0) {
+					trie.get(state)[a] = trie.size();
+					trie.add(new int[alphabet]);
+					ends.add(false);
+				}
+				state = trie.get(state)[a];
+			}
+			ends.set(state, true);
+		}
+
+		// Failure links, breadth first, turning the trie into a full automaton
+		next = trie.toArray(new int[0][]);
+		accepting = new boolean[next.length];
+		for (int s = 0; s < next.length; s++) {
+			accepting[s] = ends.get(s);
+		}
+		int[] fail = new int[next.length];
+		int[] queue = new int[next.length];
+		int head = 0;
+		int tail = 0;
+		for (int a = 0; a < alphabet; a++) {
+			if (next[0][a] != 0) {
+				queue[tail++] = next[0][a];
+			}
+		}
+		while (head < tail) {
+			int s = queue[head++];
+			accepting[s] |= accepting[fail[s]];
+			for (int a = 0; a < alphabet; a++) {
+				int t = next[s][a];
+				if (t != 0) {
+					fail[t] = next[fail[s]][a];
+					queue[tail++] = t;
+				} else {
+					next[s][a] = next[fail[s]][a];
+				}
+			}
+		}
+	}
+
+	/**
+	 * Matcher of the literals one of which every match of {@code pattern}
+	 * contains, or null when none can be extracted.
+	 */
+	static LiteralMatcher forPattern(Pattern pattern) {
+		int unsupported = Pattern.LITERAL | Pattern.COMMENTS | Pattern.CANON_EQ | Pattern.UNICODE_CASE;
+		if ((pattern.flags() & unsupported) != 0) {
+			return null;
+		}
+		boolean caseInsensitive = (pattern.flags() & Pattern.CASE_INSENSITIVE) != 0;
+
+		Set<String> literals = new LinkedHashSet<>();
+		for (String branch : topLevelBranches(pattern.pattern())) {
+			String literal = longestRequiredLiteral(branch);
+			if (literal == null || literal.isEmpty()) {
+				return null; // this branch can match without any known literal
+			}
+			literals.add(caseInsensitive ? foldAscii(literal) : literal);
+		}
+		return literals.isEmpty() ? null : new LiteralMatcher(new ArrayList<>(literals), caseInsensitive);
+	}
+
+	/**
+	 * Whether {@code text} contains one of the literals.
+	 */
+	boolean containsAny(String text) {
+		int state = 0;
+		for (int i = 0; i < text.length(); i++) {
+			state = next[state][index(caseInsensitive ? foldAscii(text.charAt(i)) : text.charAt(i))];
+			if (accepting[state]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int index(char c) {
+		if (c < 128) {
+			return asciiIndex[c];
+		}
+		Integer a = otherIndex.get(c);
+		return a == null ? 0 : a;
+	}
+
+	// CASE_INSENSITIVE without UNICODE_CASE only folds US-ASCII
+	private static char foldAscii(char c) {
+		return c >= 'a' && c <= 'z' ? (char) (c - 'a' + 'A') : c;
+	}
+
+	private static String foldAscii(String s) {
+		char[] chars = s.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = foldAscii(chars[i]);
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * The alternatives of {@code regex} outside any group; a single one when
+	 * it has no top-level '|'. Returns no branch when the regex cannot be
+	 * split safely.
+	 */
+	private static List<String> topLevelBranches(String regex) {
+		List<String> branches = new ArrayList<>();
+		int depth = 0;
+		int start = 0;
+		int i = 0;
+		while (i < regex.length()) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				i += 2;
+			} else if (c == '[') {
+				i = skipClass(regex, i);
+				if (i < 0) {
+					return List.of();
+				}
+			} else {
+				if (c == '(') {
+					depth++;
+				} else if (c == ')') {
+					depth--;
+				} else if (c == '|' && depth == 0) {
+					branches.add(regex.substring(start, i));
+					start = i + 1;
+				}
+				i++;
+			}
+		}
+		branches.add(regex.substring(start));
+		return branches;
+	}
+
+	/**
+	 * Longest run of characters every match of {@code branch} contains, "" when
+	 * there is none, null when the branch is not understood.
+	 */
+	private static String longestRequiredLiteral(String branch) {
+		String best = "";
+		StringBuilder run = new StringBuilder();
+		int i = 0;
+		while (i < branch.length()) {
+			char c = branch.charAt(i);
+			int literal = -1; // the character matched, when the atom is a literal
+			if (c == '\\') {
+				if (i + 1 >= branch.length()) {
+					return null;
+				}
+				char e = branch.charAt(i + 1);
+				if (!Character.isLetterOrDigit(e)) {
+					literal = e;
+					i += 2;
+				} else if ("dDwWsSbBAGZzhHvVRX".indexOf(e) >= 0) {
+					i += 2;
+				} else if (e == 'p' || e == 'P') {
+					i = branch.startsWith("{", i + 2) ? branch.indexOf('}', i) + 1 : i + 3;
+					if (i <= 0 || i > branch.length()) {
+						return null;
+					}
+				} else {
+					return null; // octal, hex, unicode, back reference, quoting...
+				}
+			} else if (c == '[') {
+				i = skipClass(branch, i);
+				if (i < 0) {
+					return null;
+				}
+			} else if (c == '(') {
+				if (branch.startsWith("(?", i) && !branch.startsWith("(?:", i)) {
+					return null; // inline flags, look-arounds, named groups
+				}
+				i = skipGroup(branch, i);
+				if (i < 0) {
+					return null;
+				}
+			} else if (META.indexOf(c) >= 0 && c != '.' && c != '^' && c != '$') {
+				return null; // misplaced quantifier or bracket
+			} else {
+				if (c != '.' && c != '^' && c != '$') {
+					literal = c;
+				}
+				i++;
+			}
+
+			// Quantifier of the atom
+			boolean optional = false;
+			boolean repeated = false;
+			if (i < branch.length()) {
+				char q = branch.charAt(i);
+				if (q == '?' || q == '*') {
+					optional = true;
+					i++;
+				} else if (q == '+') {
+					repeated = true;
+					i++;
+				} else if (q == '{') {
+					int close = branch.indexOf('}', i);
+					if (close < 0) {
+						return null;
+					}
+					String bounds = branch.substring(i + 1, close);
+					optional = bounds.startsWith("0") || bounds.startsWith(",");
+					repeated = true;
+					i = close + 1;
+				}
+				if (optional || repeated) {
+					if (i < branch.length() && (branch.charAt(i) == '?' || branch.charAt(i) == '+')) {
+						i++; // lazy or possessive
+					}
+				}
+			}
+
+			if (literal >= 0 && !optional) {
+				run.append((char) literal);
+			}
+			if (literal < 0 || optional || repeated) {
+				if (run.length() > best.length()) {
+					best = run.toString();
+				}
+				run.setLength(0);
+			}
+		}
+		return run.length() > best.length() ? run.toString() : best;
+	}
+
+	/**
+	 * Index after the character class starting at {@code start}, -1 when it is
+	 * not closed.
+	 */
+	private static int skipClass(String regex, int start) {
+		int depth = 0;
+		int i = start;
+		while (i < regex.length()) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '[') {
+				depth++;
+				// A ']' right after the opening (or its negation) is a literal
+				if (regex.startsWith("]", i + 1)) {
+					i++;
+				} else if (regex.startsWith("^]", i + 1)) {
+					i += 2;
+				}
+			} else if (c == ']' && --depth == 0) {
+				return i + 1;
+			}
+			i++;
+		}
+		return -1;
+	}
+
+	/**
+	 * Index after the group starting at {@code start}, -1 when it is not
+	 * closed.
+	 */
+	private static int skipGroup(String regex, int start) {
+		int depth = 0;
+		int i = start;
+		while (i < regex.length()) {
+			char c = regex.charAt(i);
+			if (c == '\\') {
+				i += 2;
+				continue;
+			}
+			if (c == '[') {
+				i = skipClass(regex, i);
+				if (i < 0) {
+					return -1;
+				}
+				continue;
+			}
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return i + 1;
+			}
+			i++;
+		}
+		return -1;
+	}
+}
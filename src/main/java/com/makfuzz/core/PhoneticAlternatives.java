@@ -0,0 +1,91 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Phonetic codes as sets of alternatives. A Beider-Morse code lists the
+ * possible pronunciations of a name ({@code "mYrtn|martn|mortn"}), grouped
+ * by word for some names ({@code "(...)-(...)"}); a French code is a single
+ * alternative.
+ * <p>
+ * Two codes sound alike (score 1) when they share an alternative; otherwise
+ * their phonetic score is the best Jaro-Winkler similarity between an
+ * alternative of each. Scoring the short alternatives, rather than the whole
+ * codes as strings, is both cheaper and more accurate.
+ */
+final class PhoneticAlternatives {
+
+	private PhoneticAlternatives() {
+	}
+
+	/**
+	 * Distinct alternatives of {@code code}, in order; the code itself when it
+	 * has no separators (or nothing but them).
+	 *
+	 * @param interned alternatives already seen, to share their instances (and
+	 *                 compare them by identity first); may be null
+	 */
+	static String[] split(String code, Map<String, String> interned) {
+		List<String> alternatives = new ArrayList<>(4);
+		int start = 0;
+		for (int i = 0; i <= code.length(); i++) {
+			if (i == code.length() || isSeparator(code.charAt(i))) {
+				if (i > start) {
+					String alternative = code.substring(start, i);
+					if (interned != null) {
+						alternative = interned.computeIfAbsent(alternative, a -> a);
+					}
+					if (!alternatives.contains(alternative)) {
+						alternatives.add(alternative);
+					}
+				}
+				start = i + 1;
+			}
+		}
+		if (alternatives.isEmpty()) {
+			return new String[] { code };
+		}
+		return alternatives.toArray(new String[0]);
+	}
+
+	private static boolean isSeparator(char c) {
+		return c == '|' || c == '(' || c == ')' || c == '-';
+	}
+
+	static long[] masks(String[] alternatives) {
+		long[] masks = new long[alternatives.length];
+		for (int i = 0; i < alternatives.length; i++) {
+			masks[i] = JaroWinkler.charMask(alternatives[i]);
+		}
+		return masks;
+	}
+
+	/**
+	 * Phonetic score of two codes: 1 when they share an alternative, else the
+	 * best similarity between their alternatives. Exact when it is at least
+	 * {@code min}, otherwise some value below {@code min} (see
+	 * {@link JaroWinkler#similarity(String, String, long, double)}).
+	 *
+	 * @param rightMasks {@link #masks} of {@code right}
+	 */
+	static double similarity(String[] left, String[] right, long[] rightMasks, double min) {
+		for (String l : left) {
+			for (String r : right) {
+				if (l.hashCode() == r.hashCode() && l.equals(r)) {
+					return 1.0;
+				}
+			}
+		}
+
+		// Pairs that cannot beat the best score so far return early
+		double best = 0.0;
+		for (String l : left) {
+			for (int j = 0; j < right.length; j++) {
+				best = Math.max(best, JaroWinkler.similarity(l, right[j], rightMasks[j], Math.max(min, best)));
+			}
+		}
+		return best;
+	}
+}
@@ -0,0 +1,142 @@
+package com.makfuzz.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+
+/**
+ * Size-bounded LRU cache of phonetic codes, keyed by (language, value) so
+ * French and generic codes coexist. Entries are spread over independently
+ * locked segments; each segment evicts its least recently used entry once it
+ * holds its share of {@code maxSize}.
+ */
+public class PhoneticCache {
+
+	private static final int SEGMENTS = 16;
+
+	/** Smallest accepted {@code maxSize}: one entry per segment. */
+	public static final int MIN_SIZE = SEGMENTS;
+
+	private record Key(boolean french, String value) {
+	}
+
+	private final int maxSize;
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public PhoneticCache(int maxSize) {
+		if (maxSize < MIN_SIZE) {
+			throw new IllegalArgumentException("maxSize must be at least " + MIN_SIZE);
+		}
+		this.maxSize = maxSize;
+		for (int i = 0; i < SEGMENTS; i++) {
+			segments[i] = new Segment(maxSize / SEGMENTS);
+		}
+	}
+
+	/**
+	 * Returns the cached code of {@code value}, computing it with
+	 * {@code encoder} on a miss. The encoder runs outside the segment lock.
+	 */
+	public String get(boolean french, String value, UnaryOperator<String> encoder) {
+		Key key = new Key(french, value);
+		Segment segment = segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+
+		String code;
+		synchronized (segment) {
+			code = segment.get(key);
+		}
+		if (code != null) {
+			hits.increment();
+			return code;
+		}
+
+		misses.increment();
+		code = encoder.apply(value);
+		synchronized (segment) {
+			segment.put(key, code);
+		}
+		return code;
+	}
+
+	/**
+	 * Caches a code computed elsewhere (warming the cache).
+	 */
+	public void put(boolean french, String value, String code) {
+		Key key = new Key(french, value);
+		Segment segment = segments[(key.hashCode() & 0x7fffffff) % SEGMENTS];
+		synchronized (segment) {
+			segment.put(key, code);
+		}
+	}
+
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public double getHitRate() {
+		long h = getHits();
+		long total = h + getMisses();
+		return total == 0 ? 0.0 : (double) h / total;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("PhoneticCache[size=%d/%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f%%]", size(),
+				maxSize, getHits(), getMisses(), getEvictions(), getHitRate() * 100);
+	}
+
+	private class Segment extends LinkedHashMap<Key, String> {
+		private static final long serialVersionUID = 1L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true); // access order = LRU
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, String> eldest) {
+			if (size() > capacity) {
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+	}
+}
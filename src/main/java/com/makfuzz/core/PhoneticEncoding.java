@@ -0,0 +1,104 @@
+package com.makfuzz.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Phonetic codes of a column's distinct values being computed. Values are
+ * handed out in chunks to whichever thread asks: searches and the
+ * {@link PhoneticPreEncoder} share the work instead of encoding the same
+ * values twice, and a search only waits for the chunks already taken.
+ * <p>
+ * A chunk once taken is always finished, so waiting threads cannot be left
+ * behind by one that stops.
+ */
+final class PhoneticEncoding {
+
+	// Beider-Morse takes up to a few hundred microseconds per value
+	static final int CHUNK_SIZE = 64;
+
+	private final String[] dictionary;
+	private final boolean isFrench;
+	private final String[] codes;
+
+	private final AtomicInteger next = new AtomicInteger();
+
+	// Guarded by this
+	private int done;
+	private RuntimeException failure;
+
+	PhoneticEncoding(String[] dictionary, boolean isFrench) {
+		this.dictionary = dictionary;
+		this.isFrench = isFrench;
+		this.codes = new String[dictionary.length];
+	}
+
+	int size() {
+		return codes.length;
+	}
+
+	int getChunkCount() {
+		return (codes.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+	}
+
+	/**
+	 * Encodes the next chunk of values. Returns the number of values encoded, 0
+	 * when every chunk was already taken.
+	 */
+	int encodeNext() {
+		if (next.get() >= codes.length) {
+			return 0;
+		}
+		int from = next.getAndAdd(CHUNK_SIZE);
+		if (from >= codes.length) {
+			return 0;
+		}
+		int to = Math.min(codes.length, from + CHUNK_SIZE);
+
+		RuntimeException error = null;
+		try {
+			for (int id = from; id < to; id++) {
+				String v = dictionary[id];
+				codes[id] = v.isEmpty() ? "" : Fuzz.phoneticCode(v, isFrench);
+			}
+		} catch (RuntimeException e) {
+			error = e;
+		}
+
+		synchronized (this) {
+			done += to - from;
+			if (error != null && failure == null) {
+				failure = error;
+			}
+			if (done == codes.length) {
+				notifyAll();
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+		return to - from;
+	}
+
+	/**
+	 * Waits for the chunks taken by other threads and returns the codes, by id.
+	 */
+	String[] await() {
+		boolean interrupted = false;
+		synchronized (this) {
+			while (done < codes.length) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					interrupted = true; // the chunks are short: finish waiting
+				}
+			}
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if (failure != null) {
+				throw failure;
+			}
+		}
+		return codes;
+	}
+}
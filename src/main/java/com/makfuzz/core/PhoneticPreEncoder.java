@@ -0,0 +1,120 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+/**
+ * Computes the phonetic codes of some columns of a freshly loaded dataset in
+ * the background, on low-priority daemon threads, so that the first search
+ * finds them ready instead of encoding every distinct value itself.
+ * <p>
+ * Searches started meanwhile share the remaining work (see
+ * {@link PhoneticEncoding}). {@link #cancel()} stops after the values being
+ * encoded.
+ */
+public final class PhoneticPreEncoder {
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+		Thread t = new Thread(r, "makfuzz-phonetic-" + THREAD_COUNT.incrementAndGet());
+		t.setDaemon(true);
+		t.setPriority(Thread.MIN_PRIORITY);
+		return t;
+	});
+
+	private final List<Dataset.Column> columns;
+	private final boolean isFrench;
+	private final IntConsumer listener;
+
+	private final int total;
+	private final AtomicInteger encoded = new AtomicInteger();
+	private final AtomicInteger running = new AtomicInteger();
+
+	private volatile boolean cancelled;
+
+	// Guarded by this: reports are made in increasing order
+	private int lastPercent = -1;
+
+	private PhoneticPreEncoder(List<Dataset.Column> columns, boolean isFrench, IntConsumer listener) {
+		this.columns = columns;
+		this.isFrench = isFrench;
+		this.listener = listener;
+		int values = 0;
+		for (Dataset.Column column : columns) {
+			values += column.getDictionary().length;
+		}
+		this.total = values;
+	}
+
+	/**
+	 * Starts encoding the distinct values of {@code columnIndexes} in
+	 * {@code lang}, with one thread per thread of the {@link ScanPool}.
+	 *
+	 * @param listener receives the encoded percentage, on the encoding threads,
+	 *                 each time it changes and 100 when done; may be null
+	 */
+	public static PhoneticPreEncoder start(Dataset dataset, List<Integer> columnIndexes, String lang,
+			IntConsumer listener) {
+		boolean isFrench = "fr".equalsIgnoreCase(lang);
+		List<Dataset.Column> columns = new ArrayList<>();
+		for (int idx : columnIndexes) {
+			Dataset.Column column = dataset.column(idx);
+			if (column.getComputedCodes(isFrench) == null) {
+				columns.add(column);
+			}
+		}
+
+		PhoneticPreEncoder encoder = new PhoneticPreEncoder(columns, isFrench, listener);
+		int threads = columns.isEmpty() ? 1 : ScanPool.getParallelism();
+		encoder.running.set(threads);
+		for (int i = 0; i < threads; i++) {
+			POOL.execute(encoder::work);
+		}
+		return encoder;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isDone() {
+		return running.get() == 0;
+	}
+
+	private void work() {
+		try {
+			for (Dataset.Column column : columns) {
+				PhoneticEncoding encoding = column.phoneticEncoding(isFrench);
+				if (encoding == null) {
+					continue; // encoded by a search meanwhile
+				}
+				int count;
+				while (!cancelled && (count = encoding.encodeNext()) > 0) {
+					report(encoded.addAndGet(count));
+				}
+				if (cancelled) {
+					return;
+				}
+				// Installs the codes once every chunk is done
+				column.getPhoneticAlternatives(isFrench);
+			}
+		} finally {
+			if (running.decrementAndGet() == 0 && !cancelled) {
+				report(total);
+			}
+		}
+	}
+
+	private synchronized void report(int done) {
+		int percent = total == 0 ? 100 : (int) ((long) done * 100 / total);
+		if (listener != null && percent > lastPercent) {
+			lastPercent = percent;
+			listener.accept(percent);
+		}
+	}
+}
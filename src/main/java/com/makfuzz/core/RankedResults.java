@@ -0,0 +1,242 @@
+package com.makfuzz.core;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The scored lines of a {@link CompiledQuery} on a {@link Dataset}, best first,
+ * kept as row numbers and scores only. Changing the threshold or the top N of
+ * the search is then a binary search in the scores: only the returned lines
+ * are scored again, to rebuild their details.
+ * <p>
+ * Built by {@link Fuzz#rank}. Immutable and thread-safe.
+ */
+public final class RankedResults {
+
+	private final Dataset dataset;
+	private final CompiledQuery query;
+
+	// Best first: highest score, then earliest row (TopNCollector.RESULT_ORDER)
+	private final int[] rows;
+	private final double[] scores;
+
+	// Every line scoring at least this is ranked (0: every line scoring above 0)
+	private final double floor;
+
+	private RankedResults(Dataset dataset, CompiledQuery query, int[] rows, double[] scores, double floor) {
+		this.dataset = dataset;
+		this.query = query;
+		this.rows = rows;
+		this.scores = scores;
+		this.floor = floor;
+	}
+
+	public CompiledQuery getQuery() {
+		return query;
+	}
+
+	/**
+	 * Number of ranked lines.
+	 */
+	public int size() {
+		return rows.length;
+	}
+
+	/**
+	 * Whether this is the ranking of {@code query} on this very dataset.
+	 */
+	public boolean isFor(Dataset dataset, CompiledQuery query) {
+		return this.dataset == dataset && this.query.equals(query);
+	}
+
+	/**
+	 * Whether {@link #select} can answer {@code threshold}: the ranking holds
+	 * every line scoring from the best score under it.
+	 */
+	public boolean covers(double threshold) {
+		return floor == 0 || threshold > floor;
+	}
+
+	/**
+	 * The result {@link Fuzz#bestMatch(Dataset, CompiledQuery, double, int, boolean)}
+	 * returns for these parameters.
+	 *
+	 * @throws IllegalArgumentException when the ranking does not cover the
+	 *                                  threshold
+	 */
+	public SearchResult select(double threshold, int topN, boolean collectAllFound) {
+		if (query.getCriterias().isEmpty()) {
+			return new SearchResult(java.util.Collections.emptyList(), 0, 0, 0, null, null, null, 0);
+		}
+		if (!covers(threshold)) {
+			throw new IllegalArgumentException("Lines scoring under " + floor + " were not ranked");
+		}
+
+		// Number of lines reaching the threshold: scores are descending
+		int low = 0;
+		int high = scores.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (scores[mid] >= threshold) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		int totalFound = low;
+
+		List<LineSimResult> top = Fuzz.scoreRows(dataset, query, rows, 0, Math.min(Math.max(0, topN), totalFound));
+
+		SearchResult sr = new SearchResult(top, totalFound);
+		if (collectAllFound) {
+			sr.setAllFoundResults(Fuzz.scoreRows(dataset, query, rows, 0, totalFound));
+		}
+
+		// Same stats as TopNCollector
+		double minAbove = totalFound > 0 ? scores[totalFound - 1] : 1.0;
+		sr.setMaxUnderThreshold(totalFound < scores.length ? scores[totalFound] : 0);
+		sr.setMinAboveThreshold(minAbove == 1.0 && top.isEmpty() ? 0 : minAbove);
+		sr.setMaxAboveThreshold(totalFound > 0 ? scores[0] : 0);
+		sr.setTotalResults(dataset.size());
+
+		return sr;
+	}
+
+	static RankedResults empty(Dataset dataset, CompiledQuery query) {
+		return new RankedResults(dataset, query, new int[0], new double[0], 0);
+	}
+
+	/**
+	 * Accumulates the scored lines of a worker, in row order. Like
+	 * {@link TopNCollector} it tracks the best score under the threshold, which
+	 * is its cutoff: lines that cannot reach it are not needed for the threshold
+	 * or any higher one.
+	 */
+	static class Collector {
+		private final double threshold;
+		private double maxUnder;
+
+		private int[] rows = new int[64];
+		private double[] scores = new double[64];
+		private int size;
+
+		private final LineScores lineScores;
+
+		/**
+		 * @param cutoff best score under the threshold already seen (by the
+		 *               lines preceding these ones)
+		 */
+		Collector(int nbCriteria, double threshold, double cutoff) {
+			this.threshold = threshold;
+			this.maxUnder = cutoff;
+			this.lineScores = new LineScores(nbCriteria);
+		}
+
+		/**
+		 * Scratch the lines are scored into; only their score is kept.
+		 */
+		LineScores getLineScores() {
+			return lineScores;
+		}
+
+		/**
+		 * @param score score of the line, 0 when it was dropped
+		 */
+		void accept(int row, double score) {
+			if (score <= 0) {
+				return;
+			}
+			if (score < threshold && score > maxUnder) {
+				maxUnder = score;
+			}
+			add(row, score);
+		}
+
+		double getCutoff() {
+			return maxUnder;
+		}
+
+		/**
+		 * Appends the lines of {@code other}, which follow these ones.
+		 */
+		void merge(Collector other) {
+			maxUnder = Math.max(maxUnder, other.maxUnder);
+			for (int i = 0; i < other.size; i++) {
+				add(other.rows[i], other.scores[i]);
+			}
+		}
+
+		private void add(int row, double score) {
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, size * 2);
+				scores = Arrays.copyOf(scores, size * 2);
+			}
+			rows[size] = row;
+			scores[size] = score;
+			size++;
+		}
+
+		/**
+		 * Result of a search over the lines collected so far, with the best
+		 * {@code topN} of them.
+		 */
+		SearchResult snapshot(Dataset dataset, CompiledQuery query, int topN) {
+			// Worst kept line at the head
+			Comparator<Integer> worstFirst = (i, j) -> scores[i] != scores[j] ? Double.compare(scores[i], scores[j])
+					: Integer.compare(rows[j], rows[i]);
+			PriorityQueue<Integer> best = new PriorityQueue<>(Math.max(1, Math.min(topN, 1024)), worstFirst);
+			int found = 0;
+			double minAbove = 1.0;
+			double maxAbove = 0;
+			for (int i = 0; i < size; i++) {
+				double score = scores[i];
+				if (score < threshold) {
+					continue;
+				}
+				found++;
+				minAbove = Math.min(minAbove, score);
+				maxAbove = Math.max(maxAbove, score);
+				if (topN <= 0) {
+					continue;
+				}
+				if (best.size() < topN) {
+					best.add(i);
+				} else if (worstFirst.compare(i, best.peek()) > 0) {
+					best.poll();
+					best.add(i);
+				}
+			}
+
+			int[] topRows = new int[best.size()];
+			for (int k = topRows.length - 1; k >= 0; k--) {
+				topRows[k] = rows[best.poll()];
+			}
+			List<LineSimResult> top = Fuzz.scoreRows(dataset, query, topRows, 0, topRows.length);
+
+			SearchResult sr = new SearchResult(top, found);
+			sr.setMaxUnderThreshold(maxUnder);
+			sr.setMinAboveThreshold(minAbove == 1.0 && top.isEmpty() ? 0 : minAbove);
+			sr.setMaxAboveThreshold(maxAbove);
+			sr.setTotalResults(dataset.size());
+			return sr;
+		}
+
+		/**
+		 * Sorts the lines best first; lines are in row order, so equal scores keep
+		 * it.
+		 */
+		RankedResults toRankedResults(Dataset dataset, CompiledQuery query) {
+			int[] order = ResultStore.bestFirst(scores, size);
+			int[] sortedRows = new int[size];
+			double[] sortedScores = new double[size];
+			for (int i = 0; i < size; i++) {
+				sortedRows[i] = rows[order[i]];
+				sortedScores[i] = scores[order[i]];
+			}
+
+			return new RankedResults(dataset, query, sortedRows, sortedScores, maxUnder);
+		}
+	}
+}
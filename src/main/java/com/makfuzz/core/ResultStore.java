@@ -0,0 +1,152 @@
+package com.makfuzz.core;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scored lines kept in primitive arrays: row, line score and, per criterion,
+ * score, spelling and phonetic scores and best column. Scores stay doubles, so
+ * results and their order are exactly those of the scan. Lines are only
+ * turned into {@link LineSimResult}s when read from {@link #sortedView}.
+ * <p>
+ * Lines are appended in row order. Not thread-safe; each worker fills its own
+ * store and they are appended to each other.
+ */
+final class ResultStore {
+
+	private final int nbCriteria;
+
+	private int size;
+	private int[] rows = new int[16];
+	private double[] totals = new double[16];
+
+	// nbCriteria values per line
+	private double[] scores;
+	private double[] spellingScores;
+	private double[] phoneticScores;
+	private int[] columns;
+
+	ResultStore(int nbCriteria) {
+		this.nbCriteria = nbCriteria;
+		scores = new double[16 * nbCriteria];
+		spellingScores = new double[16 * nbCriteria];
+		phoneticScores = new double[16 * nbCriteria];
+		columns = new int[16 * nbCriteria];
+	}
+
+	int size() {
+		return size;
+	}
+
+	void add(int row, double total, LineScores line) {
+		ensureCapacity(size + 1);
+		rows[size] = row;
+		totals[size] = total;
+		int offset = size * nbCriteria;
+		System.arraycopy(line.scores, 0, scores, offset, nbCriteria);
+		System.arraycopy(line.spellingScores, 0, spellingScores, offset, nbCriteria);
+		System.arraycopy(line.phoneticScores, 0, phoneticScores, offset, nbCriteria);
+		System.arraycopy(line.columns, 0, columns, offset, nbCriteria);
+		size++;
+	}
+
+	/**
+	 * Appends the lines of {@code other}, which follow these ones.
+	 */
+	void addAll(ResultStore other) {
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.rows, 0, rows, size, other.size);
+		System.arraycopy(other.totals, 0, totals, size, other.size);
+		int offset = size * nbCriteria;
+		int length = other.size * nbCriteria;
+		System.arraycopy(other.scores, 0, scores, offset, length);
+		System.arraycopy(other.spellingScores, 0, spellingScores, offset, length);
+		System.arraycopy(other.phoneticScores, 0, phoneticScores, offset, length);
+		System.arraycopy(other.columns, 0, columns, offset, length);
+		size += other.size;
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= rows.length) {
+			return;
+		}
+		int lines = Math.max(capacity, rows.length * 2);
+		rows = Arrays.copyOf(rows, lines);
+		totals = Arrays.copyOf(totals, lines);
+		scores = Arrays.copyOf(scores, lines * nbCriteria);
+		spellingScores = Arrays.copyOf(spellingScores, lines * nbCriteria);
+		phoneticScores = Arrays.copyOf(phoneticScores, lines * nbCriteria);
+		columns = Arrays.copyOf(columns, lines * nbCriteria);
+	}
+
+	/**
+	 * The lines best first (TopNCollector.RESULT_ORDER), each built when read.
+	 */
+	List<LineSimResult> sortedView(Dataset dataset, List<Criteria> criterias) {
+		int[] order = bestFirst(totals, size);
+		return new AbstractList<>() {
+			@Override
+			public LineSimResult get(int index) {
+				return toLineSimResult(dataset, criterias, order[index]);
+			}
+
+			@Override
+			public int size() {
+				return order.length;
+			}
+		};
+	}
+
+	private LineSimResult toLineSimResult(Dataset dataset, List<Criteria> criterias, int line) {
+		int row = rows[line];
+		LineScores scratch = new LineScores(nbCriteria);
+		int offset = line * nbCriteria;
+		for (int i = 0; i < nbCriteria; i++) {
+			scratch.scores[i] = scores[offset + i];
+			scratch.spellingScores[i] = spellingScores[offset + i];
+			scratch.phoneticScores[i] = phoneticScores[offset + i];
+			scratch.columns[i] = columns[offset + i];
+			// The value is the normalised cell of the best column
+			scratch.values[i] = columns[offset + i] < 0 ? null
+					: dataset.column(columns[offset + i]).getValue(row);
+		}
+		return scratch.toLineSimResult(dataset.getRow(row), row, criterias);
+	}
+
+	/**
+	 * Indexes of the first {@code size} scores, highest first; lines are in row
+	 * order, so equal scores keep it.
+	 */
+	static int[] bestFirst(double[] scores, int size) {
+		double[] ascending = Arrays.copyOf(scores, size);
+		Arrays.sort(ascending);
+
+		// Each line goes after the lines scoring more, and after the earlier
+		// lines with its score
+		int[] order = new int[size];
+		int[] placed = new int[size];
+		for (int i = 0; i < size; i++) {
+			int first = size - countUpTo(ascending, scores[i]);
+			order[first + placed[first]++] = i;
+		}
+		return order;
+	}
+
+	/**
+	 * Number of values at most {@code score}.
+	 */
+	private static int countUpTo(double[] ascending, double score) {
+		int low = 0;
+		int high = ascending.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (ascending[mid] <= score) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
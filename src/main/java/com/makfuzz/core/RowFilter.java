@@ -0,0 +1,133 @@
+package com.makfuzz.core;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Restricts a search to some rows of the file ("only rows whose country is
+ * FR"), without scoring: unlike an EXACT criterion a filter leaves the score
+ * alone. Filters are equality or numeric range predicates on a column,
+ * combined with {@link #and} and {@link #or}; see
+ * {@link CompiledQuery#compile(List, List, String, RowFilter)}.
+ * <p>
+ * Predicates read the rows of each matching value from the column's
+ * {@link BlockingIndex}, built once per column, and are combined as row
+ * bitmaps: the search then only scores the rows left.
+ * <p>
+ * Filters are values: equal filters select the same rows, so searches with
+ * equal filters are equal queries.
+ */
+public sealed interface RowFilter {
+
+	/**
+	 * Rows of {@code dataset} the filter keeps.
+	 */
+	BitSet matchingRows(Dataset dataset);
+
+	/**
+	 * Rows whose normalised value in {@code column} equals {@code value},
+	 * ignoring case (as an EXACT criterion compares them); an empty value keeps
+	 * the rows where the cell is missing or blank.
+	 */
+	static RowFilter equalTo(int column, String value) {
+		return new Equal(column, value == null ? "" : value.trim());
+	}
+
+	/**
+	 * Rows whose value in {@code column} is a number from {@code min} to
+	 * {@code max}, inclusive; use infinities for open ranges.
+	 */
+	static RowFilter between(int column, double min, double max) {
+		if (Double.isNaN(min) || Double.isNaN(max)) {
+			throw new IllegalArgumentException("Range bounds must be numbers");
+		}
+		return new Range(column, min, max);
+	}
+
+	static RowFilter and(RowFilter... filters) {
+		return filters.length == 1 ? filters[0] : new And(List.of(filters));
+	}
+
+	static RowFilter or(RowFilter... filters) {
+		return filters.length == 1 ? filters[0] : new Or(List.of(filters));
+	}
+
+	record Equal(int column, String value) implements RowFilter {
+		public Equal {
+			java.util.Objects.requireNonNull(value);
+		}
+
+		@Override
+		public BitSet matchingRows(Dataset dataset) {
+			BitSet rows = new BitSet(dataset.size());
+			Dataset.Column c = dataset.column(column);
+			if (value.isEmpty()) {
+				// The blocking index leaves out rows without a value
+				int[] ids = c.getIds();
+				for (int row = 0; row < ids.length; row++) {
+					if (ids[row] == 0) {
+						rows.set(row);
+					}
+				}
+			} else {
+				BlockingIndex index = c.getBlockingIndex();
+				index.addRows(index.exactKeys(value), rows);
+			}
+			return rows;
+		}
+	}
+
+	record Range(int column, double min, double max) implements RowFilter {
+		@Override
+		public BitSet matchingRows(Dataset dataset) {
+			Dataset.Column c = dataset.column(column);
+			double[] numbers = c.getNumbers();
+			int[] keys = new int[numbers.length];
+			int count = 0;
+			for (int id = 1; id < numbers.length; id++) {
+				if (numbers[id] >= min && numbers[id] <= max) {
+					keys[count++] = id;
+				}
+			}
+			BitSet rows = new BitSet(dataset.size());
+			c.getBlockingIndex().addRows(java.util.Arrays.copyOf(keys, count), rows);
+			return rows;
+		}
+	}
+
+	record And(List<RowFilter> filters) implements RowFilter {
+		public And {
+			filters = List.copyOf(filters);
+			if (filters.isEmpty()) {
+				throw new IllegalArgumentException("No filter to combine");
+			}
+		}
+
+		@Override
+		public BitSet matchingRows(Dataset dataset) {
+			BitSet rows = filters.get(0).matchingRows(dataset);
+			for (int i = 1; i < filters.size() && !rows.isEmpty(); i++) {
+				rows.and(filters.get(i).matchingRows(dataset));
+			}
+			return rows;
+		}
+	}
+
+	record Or(List<RowFilter> filters) implements RowFilter {
+		public Or {
+			filters = List.copyOf(filters);
+			if (filters.isEmpty()) {
+				throw new IllegalArgumentException("No filter to combine");
+			}
+		}
+
+		@Override
+		public BitSet matchingRows(Dataset dataset) {
+			BitSet rows = filters.get(0).matchingRows(dataset);
+			for (int i = 1; i < filters.size(); i++) {
+				rows.or(filters.get(i).matchingRows(dataset));
+			}
+			return rows;
+		}
+	}
+}
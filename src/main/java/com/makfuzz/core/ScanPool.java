@@ -0,0 +1,161 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Dedicated work-stealing pool running the parallel work of searches, loading
+ * and deduplication, so that it neither competes with nor depends on the
+ * common pool.
+ * <p>
+ * Index ranges are cut into explicit chunks, about
+ * {@value #CHUNKS_PER_THREAD} per thread so that stealing evens out uneven
+ * rows; each chunk fills its own accumulator, and accumulators are merged in
+ * index order. The parallelism defaults to the number of processors and can be
+ * changed with {@link #setParallelism(int)} (the {@code parallelism} of the
+ * configuration).
+ */
+public final class ScanPool {
+
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+	private static volatile ForkJoinPool pool = newPool(0);
+
+	private ScanPool() {
+	}
+
+	public static int getParallelism() {
+		return pool.getParallelism();
+	}
+
+	/**
+	 * Replaces the pool; running work completes on the former one.
+	 *
+	 * @param parallelism number of threads, or 0 (or less) for one per
+	 *                    processor
+	 */
+	public static synchronized void setParallelism(int parallelism) {
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		if (threads == pool.getParallelism()) {
+			return;
+		}
+		ForkJoinPool former = pool;
+		pool = newPool(threads);
+		former.shutdown();
+	}
+
+	private static ForkJoinPool newPool(int parallelism) {
+		int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+		return new ForkJoinPool(threads, p -> {
+			ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+			t.setName("makfuzz-scan-" + THREAD_COUNT.incrementAndGet());
+			return t;
+		}, null, false);
+	}
+
+	/**
+	 * Parallel {@code collect} over {@code [from, to)}: each chunk of indexes is
+	 * accumulated, in order, into a new container; containers are then merged
+	 * with {@code combiner(left, right)}, the right one holding the following
+	 * indexes.
+	 */
+	public static <A> A collect(int from, int to, Supplier<A> supplier, ObjIntConsumer<A> accumulator,
+			BiConsumer<A, A> combiner) {
+		ForkJoinPool p = pool;
+		int chunkSize = Math.max(1, (to - from) / (p.getParallelism() * CHUNKS_PER_THREAD));
+		return invoke(p, new CollectTask<>(from, to, chunkSize, supplier, accumulator, combiner));
+	}
+
+	/**
+	 * Runs {@code action} for each index of {@code [from, to)}, in parallel.
+	 */
+	public static void forEach(int from, int to, IntConsumer action) {
+		collect(from, to, () -> null, (none, i) -> action.accept(i), (left, right) -> {
+		});
+	}
+
+	/**
+	 * Maps each index of {@code [from, to)}, in parallel, keeping the index
+	 * order.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> List<T> map(int from, int to, IntFunction<T> mapper) {
+		Object[] mapped = new Object[Math.max(0, to - from)];
+		forEach(from, to, i -> mapped[i - from] = mapper.apply(i));
+		return new ArrayList<>((List<T>) Arrays.asList(mapped));
+	}
+
+	/**
+	 * Runs {@code task} in the pool: parallel streams and parallel sorts it
+	 * starts then use the pool too.
+	 */
+	public static <T> T call(Supplier<T> task) {
+		ForkJoinPool p = pool;
+		if (Thread.currentThread() instanceof ForkJoinWorkerThread w && w.getPool() == p) {
+			return task.get();
+		}
+		return p.submit(task::get).join();
+	}
+
+	private static <T> T invoke(ForkJoinPool p, RecursiveTask<T> task) {
+		// Nested work (a batch of searches, each scanning in parallel) stays in the
+		// worker's pool
+		if (Thread.currentThread() instanceof ForkJoinWorkerThread w && w.getPool() == p) {
+			return task.invoke();
+		}
+		return p.invoke(task);
+	}
+
+	private static class CollectTask<A> extends RecursiveTask<A> {
+		private static final long serialVersionUID = 1L;
+
+		private final int from;
+		private final int to;
+		private final int chunkSize;
+		private final Supplier<A> supplier;
+		private final ObjIntConsumer<A> accumulator;
+		private final BiConsumer<A, A> combiner;
+
+		CollectTask(int from, int to, int chunkSize, Supplier<A> supplier, ObjIntConsumer<A> accumulator,
+				BiConsumer<A, A> combiner) {
+			this.from = from;
+			this.to = to;
+			this.chunkSize = chunkSize;
+			this.supplier = supplier;
+			this.accumulator = accumulator;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected A compute() {
+			if (to - from <= chunkSize) {
+				A acc = supplier.get();
+				for (int i = from; i < to; i++) {
+					accumulator.accept(acc, i);
+				}
+				return acc;
+			}
+
+			int mid = (from + to) >>> 1;
+			CollectTask<A> left = new CollectTask<>(from, mid, chunkSize, supplier, accumulator, combiner);
+			CollectTask<A> right = new CollectTask<>(mid, to, chunkSize, supplier, accumulator, combiner);
+			left.fork();
+			A rightAcc = right.compute();
+			A leftAcc = left.join();
+			combiner.accept(leftAcc, rightAcc);
+			return leftAcc;
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package com.makfuzz.core;
+
+import java.util.function.Consumer;
+
+/**
+ * Cancellation token and progress listener of a search run with
+ * {@link Fuzz#rank(Dataset, CompiledQuery, double, SearchMonitor)}.
+ * <p>
+ * {@link #cancel()} may be called from any thread: the scan stops scoring lines
+ * at once and {@code rank} throws a
+ * {@link java.util.concurrent.CancellationException}. The listener is called
+ * on the searching thread, at most every {@value #REPORT_INTERVAL_MILLIS} ms,
+ * with the best lines found so far.
+ */
+public class SearchMonitor {
+
+	static final long REPORT_INTERVAL_MILLIS = 200;
+
+	private final int snapshotSize;
+	private final Consumer<SearchProgress> listener;
+
+	private volatile boolean cancelled;
+
+	// Searching thread only
+	private long lastReport;
+
+	/**
+	 * @param snapshotSize number of lines in the partial results (top N)
+	 * @param listener     receives the progress, or null
+	 */
+	public SearchMonitor(int snapshotSize, Consumer<SearchProgress> listener) {
+		this.snapshotSize = snapshotSize;
+		this.listener = listener;
+	}
+
+	public void cancel() {
+		cancelled = true;
+	}
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	int getSnapshotSize() {
+		return snapshotSize;
+	}
+
+	/**
+	 * Whether a report is wanted now; the first one comes after one interval.
+	 */
+	boolean isReportDue(long startNanos) {
+		if (listener == null) {
+			return false;
+		}
+		long now = System.nanoTime();
+		if (now - Math.max(startNanos, lastReport) < REPORT_INTERVAL_MILLIS * 1_000_000) {
+			return false;
+		}
+		lastReport = now;
+		return true;
+	}
+
+	void report(SearchProgress progress) {
+		listener.accept(progress);
+	}
+}
@@ -0,0 +1,28 @@
+package com.makfuzz.core;
+
+import lombok.Data;
+
+/**
+ * Progress of a running search, reported through its {@link SearchMonitor}.
+ */
+@Data
+public class SearchProgress {
+	private final int scannedRows;
+	// Rows the search scores: the ones blocking could not rule out
+	private final int totalRows;
+	private final long elapsedNanos;
+	// Best lines among the scanned rows, with the stats so far
+	private final SearchResult partialResult;
+
+	public int getFound() {
+		return partialResult.getTotalFound();
+	}
+
+	public int getPercent() {
+		return totalRows == 0 ? 100 : (int) (100L * scannedRows / totalRows);
+	}
+
+	public long getRowsPerSecond() {
+		return elapsedNanos == 0 ? 0 : scannedRows * 1_000_000_000L / elapsedNanos;
+	}
+}
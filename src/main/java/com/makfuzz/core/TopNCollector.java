@@ -0,0 +1,152 @@
+package com.makfuzz.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Streaming accumulator for {@link Fuzz#bestMatch}: keeps the best {@code topN}
+ * lines in a bounded min-heap and the threshold statistics as running
+ * aggregates, so the full match list is never retained unless asked for (and
+ * then in a {@link ResultStore}). A {@link LineSimResult} is only built for a
+ * line entering the heap. Instances are not thread-safe; each worker fills its
+ * own, scoring lines into its {@link #getLineScores()}, and they are merged.
+ */
+class TopNCollector {
+
+	// Best first: highest score, then earliest row (same order as the former stable sort)
+	static final Comparator<LineSimResult> RESULT_ORDER = Comparator
+			.comparingDouble(LineSimResult::getScore).reversed()
+			.thenComparingInt(LineSimResult::getRowIndex);
+
+	private final Dataset dataset;
+	private final List<Criteria> criterias;
+	private final double threshold;
+	private final int topN;
+
+	// Worst kept line at the head
+	private final PriorityQueue<LineSimResult> heap;
+	private final ResultStore allFound;
+
+	private final LineScores lineScores;
+
+	private int totalFound = 0;
+	private double maxUnder = 0;
+	private double minAbove = 1.0;
+	private double maxAbove = 0;
+
+	TopNCollector(Dataset dataset, List<Criteria> criterias, double threshold, int topN, boolean collectAllFound) {
+		this.dataset = dataset;
+		this.criterias = criterias;
+		this.threshold = threshold;
+		this.topN = Math.max(0, topN);
+		this.heap = new PriorityQueue<>(Math.min(this.topN, 1024) + 1, RESULT_ORDER.reversed());
+		this.allFound = collectAllFound ? new ResultStore(criterias.size()) : null;
+		this.lineScores = new LineScores(criterias.size());
+	}
+
+	/**
+	 * Scratch the lines are scored into before {@link #accept}.
+	 */
+	LineScores getLineScores() {
+		return lineScores;
+	}
+
+	/**
+	 * Takes the line just scored into {@link #getLineScores()}.
+	 *
+	 * @param score its score, 0 when it was dropped
+	 */
+	void accept(int row, double score) {
+		if (score <= 0) {
+			return;
+		}
+
+		if (score < threshold) {
+			if (score > maxUnder) {
+				maxUnder = score;
+			}
+			return;
+		}
+
+		totalFound++;
+		if (score < minAbove) {
+			minAbove = score;
+		}
+		if (score > maxAbove) {
+			maxAbove = score;
+		}
+
+		if (allFound != null) {
+			allFound.add(row, score, lineScores);
+		}
+
+		if (topN == 0) {
+			return;
+		}
+		if (heap.size() < topN) {
+			heap.add(lineScores.toLineSimResult(dataset.getRow(row), row, criterias));
+		} else {
+			// Better than the worst kept line (same order as RESULT_ORDER)
+			LineSimResult worst = heap.peek();
+			double worstScore = worst.getScore();
+			if (score > worstScore || (score == worstScore && row < worst.getRowIndex())) {
+				heap.poll();
+				heap.add(lineScores.toLineSimResult(dataset.getRow(row), row, criterias));
+			}
+		}
+	}
+
+	private void offer(LineSimResult lsr) {
+		if (topN == 0) {
+			return;
+		}
+		if (heap.size() < topN) {
+			heap.add(lsr);
+		} else if (RESULT_ORDER.compare(lsr, heap.peek()) < 0) {
+			heap.poll();
+			heap.add(lsr);
+		}
+	}
+
+	/**
+	 * Lines scoring at most this value change nothing here: they are under the
+	 * threshold, and no better than the best score already seen under it.
+	 * Lines above the threshold are never cut, as they all count in the stats.
+	 */
+	double getCutoff() {
+		return maxUnder;
+	}
+
+	void merge(TopNCollector other) {
+		totalFound += other.totalFound;
+		maxUnder = Math.max(maxUnder, other.maxUnder);
+		minAbove = Math.min(minAbove, other.minAbove);
+		maxAbove = Math.max(maxAbove, other.maxAbove);
+
+		if (allFound != null) {
+			allFound.addAll(other.allFound);
+		}
+		for (LineSimResult lsr : other.heap) {
+			offer(lsr);
+		}
+	}
+
+	SearchResult toSearchResult(int totalResults) {
+		List<LineSimResult> top = new ArrayList<>(heap);
+		top.sort(RESULT_ORDER);
+
+		SearchResult sr = new SearchResult(top, totalFound);
+		if (allFound != null) {
+			sr.setAllFoundResults(allFound.sortedView(dataset, criterias));
+		}
+
+		sr.setMaxUnderThreshold(maxUnder);
+		sr.setMinAboveThreshold(minAbove == 1.0 && top.isEmpty() ? 0 : minAbove);
+		sr.setMaxAboveThreshold(maxAbove);
+		sr.setTotalResults(totalResults);
+
+		return sr;
+	}
+}
@@ -0,0 +1,57 @@
+package com.makfuzz.core;
+
+/**
+ * Disjoint sets over 0..n-1 (union by size, path halving).
+ */
+class UnionFind {
+
+	private final int[] parent;
+	private final int[] size;
+
+	UnionFind(int n) {
+		parent = new int[n];
+		size = new int[n];
+		for (int i = 0; i < n; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+	}
+
+	int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Whether a and b are already in the same set. Does not compress paths, so
+	 * it can be called from several threads while no union is running.
+	 */
+	boolean connected(int a, int b) {
+		while (parent[a] != a) {
+			a = parent[a];
+		}
+		while (parent[b] != b) {
+			b = parent[b];
+		}
+		return a == b;
+	}
+
+	boolean union(int a, int b) {
+		int ra = find(a);
+		int rb = find(b);
+		if (ra == rb) {
+			return false;
+		}
+		if (size[ra] < size[rb]) {
+			int t = ra;
+			ra = rb;
+			rb = t;
+		}
+		parent[rb] = ra;
+		size[ra] += size[rb];
+		return true;
+	}
+}
@@ -0,0 +1,172 @@
+package com.makfuzz.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential test of the row pruning of {@link Fuzz#bestMatch}: blocking
+ * indexes, restricted EXACT / REGEX scans and distinct value scores must keep
+ * every row, with the same score, that scoring each row on its own keeps.
+ */
+class BlockingRecallTest {
+
+	private static final double[] THRESHOLDS = { 0.3, 0.6, 0.8, 0.9, 0.97 };
+
+	private static final List<Integer> COLUMNS = List.of(0, 1);
+
+	private static List<String> firstNames;
+	private static List<String> lastNames;
+	private static Dataset dataset;
+
+	@BeforeAll
+	static void loadNames() throws IOException {
+		firstNames = readNames("FirstNames.txt");
+		lastNames = readNames("LastNames.txt");
+
+		// First names repeat a lot (their distinct values get scored once), last
+		// names much less
+		List<String[]> rows = new ArrayList<>();
+		for (int i = 0; i < 12_000; i++) {
+			rows.add(new String[] { firstNames.get(i % 300), lastNames.get((i * 7 + 3) % 4_000) });
+		}
+		dataset = Dataset.of(rows);
+	}
+
+	@Test
+	void similarityKeepsEveryRowInFrench() {
+		for (String name : names()) {
+			assertSameRows(List.of(Criteria.similarity(name, 1, 1, 0.8, 0.8)), "fr");
+			assertSameRows(List.of(Criteria.similarity(name, 1, 1, 0.7, 0)), "fr");
+			assertSameRows(List.of(Criteria.similarity(name, 2, 1, 0, 0.9)), "fr");
+		}
+	}
+
+	@Test
+	void similarityKeepsEveryRowInEnglish() {
+		for (String name : names()) {
+			assertSameRows(List.of(Criteria.similarity(name, 1, 1, 0.8, 0.8)), "en");
+			assertSameRows(List.of(Criteria.similarity(name, 1, 1, 0.7, 0)), "en");
+			assertSameRows(List.of(Criteria.similarity(name, 2, 1, 0, 0.9)), "en");
+		}
+	}
+
+	@Test
+	void combinedCriteriaKeepEveryRow() {
+		String first = firstNames.get(17);
+		String last = lastNames.get((17 * 7 + 3) % 4_000);
+		for (String lang : new String[] { "fr", "en" }) {
+			assertSameRows(List.of(Criteria.similarity(first, 1, 1, 0.75, 0.75),
+					Criteria.similarity(misspell(last), 1, 1, 0.75, 0.75)), lang);
+			assertSameRows(List.of(Criteria.exact(first, 1, 1), Criteria.similarity(misspell(last), 1, 1, 0.6, 0.6)),
+					lang);
+			assertSameRows(List.of(Criteria.regex(first.substring(0, 3) + ".*", 1, 1),
+					Criteria.similarity(last, 1, 1, 0.6, 0)), lang);
+		}
+	}
+
+	/**
+	 * Names of the dataset, as they are and misspelled, and names it does not
+	 * hold.
+	 */
+	private static List<String> names() {
+		List<String> names = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			String first = firstNames.get(i * 47);
+			String last = lastNames.get(i * 613 + 5);
+			names.add(first);
+			names.add(misspell(first));
+			names.add(last);
+			names.add(misspell(last));
+			names.add(lastNames.get(9_000 + i));
+		}
+		return names;
+	}
+
+	/**
+	 * Drops the second letter and swaps the last two, so that the name still
+	 * matches its neighbours with lower scores.
+	 */
+	private static String misspell(String name) {
+		if (name.length() < 4) {
+			return name + "E";
+		}
+		String s = name.charAt(0) + name.substring(2);
+		int n = s.length();
+		return s.substring(0, n - 2) + s.charAt(n - 1) + s.charAt(n - 2);
+	}
+
+	private static void assertSameRows(List<Criteria> criterias, String lang) {
+		CompiledQuery query = CompiledQuery.compile(criterias, COLUMNS, lang);
+		Map<Integer, Double> expected = scoreEveryRow(query);
+		for (double threshold : THRESHOLDS) {
+			SearchResult result = Fuzz.bestMatch(dataset, criterias, COLUMNS, threshold, 0, lang, true);
+
+			Map<Integer, Double> found = new TreeMap<>();
+			for (LineSimResult line : result.getAllFoundResults()) {
+				found.put(line.getRowIndex(), line.getScore());
+			}
+			Map<Integer, Double> kept = new TreeMap<>();
+			expected.forEach((row, score) -> {
+				if (score >= threshold) {
+					kept.put(row, score);
+				}
+			});
+
+			String what = criterias.stream().map(c -> c.getMatchingType() + " " + c.getValue()).toList() + " " + lang
+					+ " >= " + threshold;
+			assertEquals(kept.keySet(), found.keySet(), what);
+			kept.forEach((row, score) -> assertEquals(score, found.get(row), 1e-12, what + ", row " + row));
+			assertEquals(kept.size(), result.getTotalFound(), what);
+		}
+	}
+
+	/**
+	 * Scores of the rows scoring above 0, each row scored on its own, with no
+	 * index, shared value score or early exit.
+	 */
+	private static Map<Integer, Double> scoreEveryRow(CompiledQuery query) {
+		CompiledQuery.Scorer[] scorers = query.getScorers();
+		LineScores line = new LineScores(scorers.length);
+		Map<Integer, Double> scores = new TreeMap<>();
+		for (int row = 0; row < dataset.size(); row++) {
+			line.clear();
+			boolean dropped = false;
+			for (int i = 0; i < scorers.length && !dropped; i++) {
+				boolean matching = false;
+				for (int columnIndex : query.getSearchColumns()) {
+					Dataset.Column column = dataset.column(columnIndex);
+					int id = column.getIds()[row];
+					if (id == 0) {
+						continue;
+					}
+					String[] phonetic = query.hasSimilarity()
+							? column.getPhoneticAlternatives(query.isFrench())[id]
+							: null;
+					matching |= scorers[i].score(line, i, column.getDictionary()[id], phonetic, columnIndex);
+				}
+				dropped = !matching && scorers[i].requiresMatch();
+			}
+			double score = dropped ? 0 : line.total();
+			if (score > 0) {
+				scores.put(row, score);
+			}
+		}
+		return scores;
+	}
+
+	private static List<String> readNames(String file) throws IOException {
+		return Files.readAllLines(Path.of(file), StandardCharsets.UTF_8).stream().map(String::trim)
+				.filter(s -> !s.isEmpty()).toList();
+	}
+}
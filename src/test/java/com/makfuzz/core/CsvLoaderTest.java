@@ -0,0 +1,79 @@
+package com.makfuzz.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Loading CSV files with {@link CsvLoader}, with chunks small enough to split
+ * records and quoted fields.
+ */
+class CsvLoaderTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void loadsTheSameRowsWhateverTheChunkSize() throws IOException {
+		String data = "id;name;note\r\n" //
+				+ "1;Jean;\"first\r\nsecond\nthird\"\r\n" //
+				+ "\r\n" //
+				+ "2;\"Dupont \"\"Jr\"\"\";plain\n" //
+				+ "3;Élodie;\"a;b\"\n" //
+				+ "4;Luc;\"open at eof";
+		File file = write("data.csv", data);
+
+		String[][] rows = { { "1", "Jean", "first\r\nsecond\nthird" }, { "2", "Dupont \"Jr\"", "plain" },
+				{ "3", "Élodie", "a;b" }, { "4", "Luc", "open at eof" } };
+		int[] lines = { 2, 6, 7, 8 };
+
+		int length = data.getBytes(StandardCharsets.UTF_8).length;
+		for (int chunkSize = 1; chunkSize <= length + 1; chunkSize++) {
+			Dataset dataset = CsvLoader.load(file, null, chunkSize);
+			assertEquals(rows.length, dataset.size(), "chunk size " + chunkSize);
+			for (int row = 0; row < rows.length; row++) {
+				assertArrayEquals(rows[row], dataset.getRow(row), "chunk size " + chunkSize);
+				assertEquals(lines[row], dataset.getLineNumber(row), "chunk size " + chunkSize);
+			}
+		}
+	}
+
+	@Test
+	void sniffsTheDelimiterFromTheHeader() throws IOException {
+		for (String delimiter : new String[] { ",", ";", "\t" }) {
+			File file = write("sniffed.csv", String.join(delimiter, "first", "last", "\"city" + delimiter + "zip\"")
+					+ "\n" + String.join(delimiter, "Jean", "Dupont", "Paris") + "\n");
+			Dataset dataset = CsvLoader.load(file, null, 4);
+			assertArrayEquals(new String[] { "Jean", "Dupont", "Paris" }, dataset.getRow(0));
+			assertArrayEquals(new String[] { "first", "last", "city" + delimiter + "zip" }, CsvLoader.readHeader(file));
+		}
+	}
+
+	@Test
+	void readsTheHeaderAfterABomAndAcrossQuotedLineBreaks() throws IOException {
+		File file = write("header.csv", "\uFEFF\"first\nname\",last\r\nJean,Dupont\r\n");
+		assertArrayEquals(new String[] { "first\nname", "last" }, CsvLoader.readHeader(file));
+
+		Dataset dataset = CsvLoader.load(file, null);
+		assertEquals(1, dataset.size());
+		assertArrayEquals(new String[] { "Jean", "Dupont" }, dataset.getRow(0));
+		assertEquals(3, dataset.getLineNumber(0));
+
+		assertArrayEquals(new String[0], CsvLoader.readHeader(write("empty.csv", "")));
+		assertEquals(0, CsvLoader.load(write("empty.csv", ""), null).size());
+	}
+
+	private File write(String name, String data) throws IOException {
+		Path path = dir.resolve(name);
+		Files.writeString(path, data, StandardCharsets.UTF_8);
+		return path.toFile();
+	}
+}
@@ -0,0 +1,83 @@
+package com.makfuzz.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tokenizing records and sniffing delimiters with {@link CsvParser}.
+ */
+class CsvParserTest {
+
+	@Test
+	void detectsTheMostFrequentDelimiterOutsideQuotes() {
+		assertEquals(',', CsvParser.detectDelimiter("first,last,city"));
+		assertEquals(';', CsvParser.detectDelimiter("first;last;\"city,zip\""));
+		assertEquals('\t', CsvParser.detectDelimiter("first\tlast\t\"a;b;c\""));
+		assertEquals('|', CsvParser.detectDelimiter("first|last"));
+		assertEquals(',', CsvParser.detectDelimiter("single"));
+	}
+
+	@Test
+	void parsesQuotedAndTrimmedFields() {
+		CsvParser parser = new CsvParser(',');
+		assertArrayEquals(new String[] { "a", "b c", "" }, parser.parseLine(" a , b c ,"));
+		assertArrayEquals(new String[] { "x, y", " padded ", "z" }, parser.parseLine("\"x, y\",\" padded \",z"));
+		assertArrayEquals(new String[] { "say \"hi\"", "\"" }, parser.parseLine("\"say \"\"hi\"\"\",\"\"\"\""));
+		assertArrayEquals(new String[] { "quoted", "next" }, parser.parseLine("\"quoted\" ignored,next"));
+		assertArrayEquals(new String[] { "É", "ß" }, parser.parseLine("É,\"ß\""));
+	}
+
+	@Test
+	void splitsRecordsOnLfAndCrlfAndKeepsQuotedLineBreaks() {
+		String data = "a;b\r\n\"multi\r\nline\";\"x\ny\"\nlast;\"\"\"q\"\"\"\r\n\n";
+		ByteBuffer buf = ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8));
+		CsvParser parser = new CsvParser(';');
+
+		int pos = parser.next(buf, 0, buf.limit(), true);
+		assertArrayEquals(new String[] { "a", "b" }, parser.getFields(buf));
+		assertEquals(1, parser.getLineCount());
+
+		pos = parser.next(buf, pos, buf.limit(), true);
+		assertArrayEquals(new String[] { "multi\r\nline", "x\ny" }, parser.getFields(buf));
+		assertEquals(3, parser.getLineCount());
+
+		pos = parser.next(buf, pos, buf.limit(), true);
+		assertArrayEquals(new String[] { "last", "\"q\"" }, parser.getFields(buf));
+
+		pos = parser.next(buf, pos, buf.limit(), true);
+		assertTrue(parser.isBlankRecord());
+		assertEquals(buf.limit(), pos);
+	}
+
+	@Test
+	void reportsDataEndingInsideQuotesUnlessAtEof() {
+		ByteBuffer buf = ByteBuffer.wrap("a,\"open\nfield".getBytes(StandardCharsets.UTF_8));
+		CsvParser parser = new CsvParser(',');
+		assertEquals(-1, parser.next(buf, 0, buf.limit(), false));
+		assertEquals(buf.limit(), parser.next(buf, 0, buf.limit(), true));
+		assertArrayEquals(new String[] { "a", "open\nfield" }, parser.getFields(buf));
+	}
+
+	@Test
+	void escapedValuesReadBackUnchangedWithEveryDelimiter() {
+		String[] values = { "plain", "", "a,b", "a;b", "a\tb", "a|b", "say \"hi\"", "two\nlines", "cr\r\nlf",
+				" padded ", "Élodie" };
+		for (char delimiter : new char[] { ',', ';', '\t', '|' }) {
+			StringBuilder line = new StringBuilder();
+			for (int i = 0; i < values.length; i++) {
+				if (i > 0) {
+					line.append(delimiter);
+				}
+				line.append(CsvParser.escape(values[i]));
+			}
+			assertArrayEquals(values, new CsvParser(delimiter).parseLine(line.toString()),
+					"delimiter " + (int) delimiter);
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.makfuzz.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Saving and reopening {@link DatasetSnapshot} generations.
+ */
+class DatasetSnapshotTest {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void reopenedSnapshotIsRefreshedWithAnotherLanguage() throws IOException {
+		File csv = dir.resolve("names.csv").toFile();
+		Files.writeString(csv.toPath(), "first,last\nJean,Dupont\nMarie,\"Du\nPont\"\n\nLuc,Martin\n",
+				StandardCharsets.UTF_8);
+
+		// Parsed, French codes computed, saved
+		Dataset parsed = DatasetSnapshot.load(csv, null);
+		assertNull(parsed.snapshotContent);
+		String[] french = parsed.column(1).getPhoneticCodes(true);
+		DatasetSnapshot.save(parsed);
+		assertEquals(1, DatasetSnapshot.generationsOf(csv).size());
+
+		// Reopened from the snapshot, then saved again with the generic codes
+		Dataset reopened = DatasetSnapshot.load(csv, null);
+		assertEquals("1:F;", reopened.snapshotContent);
+		assertTrue(DatasetSnapshot.isSaved(reopened));
+		assertArrayEquals(french, reopened.column(1).getComputedCodes(true));
+		String[] generic = reopened.column(1).getPhoneticCodes(false);
+		DatasetSnapshot.save(reopened);
+		assertTrue(DatasetSnapshot.isSaved(reopened));
+
+		// The rows of the first reopened dataset are still readable
+		assertRowsEqual(parsed, reopened);
+
+		// Reopened from the new generation, with both languages
+		Dataset again = DatasetSnapshot.load(csv, null);
+		assertEquals("1:FG;", again.snapshotContent);
+		assertArrayEquals(french, again.column(1).getComputedCodes(true));
+		assertArrayEquals(generic, again.column(1).getComputedCodes(false));
+		assertRowsEqual(parsed, again);
+
+		List<File> generations = DatasetSnapshot.generationsOf(csv);
+		assertEquals(1, generations.size());
+		assertEquals("names.csv.mfz.2", generations.get(0).getName());
+	}
+
+	@Test
+	void changedFileIsParsedAgain() throws IOException {
+		File csv = dir.resolve("names.csv").toFile();
+		Files.writeString(csv.toPath(), "first\nJean\n", StandardCharsets.UTF_8);
+		Dataset parsed = DatasetSnapshot.load(csv, null);
+		parsed.column(0).getPhoneticCodes(true);
+		DatasetSnapshot.save(parsed);
+
+		Files.writeString(csv.toPath(), "first\nJean\nMarie\n", StandardCharsets.UTF_8);
+		Dataset changed = DatasetSnapshot.load(csv, null);
+		assertNull(changed.snapshotContent);
+		assertEquals(2, changed.size());
+		assertTrue(DatasetSnapshot.generationsOf(csv).isEmpty());
+	}
+
+	private static void assertRowsEqual(Dataset expected, Dataset actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int row = 0; row < expected.size(); row++) {
+			assertNotNull(actual.getRow(row));
+			assertArrayEquals(expected.getRow(row), actual.getRow(row));
+			assertEquals(expected.getLineNumber(row), actual.getLineNumber(row));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.makfuzz.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Differential test of {@link FrenchSoundex} against the original regex
+ * encoder on the bundled name files.
+ */
+class FrenchSoundexTest {
+
+	private final FrenchSoundex encoder = new FrenchSoundex();
+	private final RegexFrenchSoundex reference = new RegexFrenchSoundex();
+
+	@Test
+	void firstNamesEncodeLikeTheRegexEncoder() throws IOException {
+		assertSameCodes(Path.of("FirstNames.txt"));
+	}
+
+	@Test
+	void lastNamesEncodeLikeTheRegexEncoder() throws IOException {
+		assertSameCodes(Path.of("LastNames.txt"));
+	}
+
+	@Test
+	void accentsAndEdgeCasesEncodeLikeTheRegexEncoder() {
+		String[] words = { null, "", " ", "A", "É", "  Chloé  ", "Ægir", "Œuvre", "Façade", "Muñoz", "Strauß",
+				"Gnocchi", "Philippe", "Quentin", "Bordeaux", "Rousseau", "Guillaume", "Ph", "Gn", "eaux",
+				"Jean-François", "O'Neil", "Benoît\n", "Thibaut\r\n", "istanbul" };
+		for (String word : words) {
+			assertEquals(reference.encode(word), encoder.encode(word), () -> "code of \"" + word + "\"");
+		}
+	}
+
+	private void assertSameCodes(Path file) throws IOException {
+		List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+		List<String> words = new ArrayList<>(lines.size() * 3);
+		for (String line : lines) {
+			words.add(line);
+			words.add(line.toLowerCase(Locale.ROOT));
+			words.add(" " + line + " ");
+		}
+		for (String word : words) {
+			assertEquals(reference.encode(word), encoder.encode(word), () -> file + ": code of \"" + word + "\"");
+		}
+	}
+}